@@ -0,0 +1,51 @@
+package com.unifiedvideo.player;
+
+import com.unifiedvideo.player.analytics.AnalyticsEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload construction behind trackAnalytics: the pooled event handed to providers,
+ * the map built for providers that only implement track(), and the old per-event map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnalyticsEventBenchmark {
+    private long position = 12_345;
+    private final long duration = 3_600_000;
+
+    @Benchmark
+    public void pooledEvent(Blackhole bh) {
+        AnalyticsEvent event = AnalyticsEvent.obtain(AnalyticsEvent.PLAY, System.currentTimeMillis(), position++, duration);
+        bh.consume(event);
+        event.recycle();
+    }
+
+    @Benchmark
+    public Map<String, Object> pooledEventToMap() {
+        AnalyticsEvent event = AnalyticsEvent.obtain(AnalyticsEvent.PLAY, System.currentTimeMillis(), position++, duration);
+        Map<String, Object> map = event.toMap();
+        event.recycle();
+        return map;
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyHashMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("timestamp", System.currentTimeMillis());
+        data.put("position", position++);
+        data.put("duration", duration);
+        return data;
+    }
+}
@@ -0,0 +1,47 @@
+package com.unifiedvideo.player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** {@link MediaSourceInfo#detectType} over typical CDN URLs, against the old substring scan. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContentTypeBenchmark {
+    private final String[] urls = {
+        "https://cdn.example.com/vod/movie/master.m3u8",
+        "https://cdn.example.com/vod/movie/manifest.mpd?hdnts=exp=1700000000~acl=/*~hmac=0123456789abcdef",
+        "https://origin.example.com/live/channel.isml/Manifest",
+        "https://media.example.com/clips/intro.mp4",
+        "https://media.example.com/clips/trailer.webm#t=10",
+        "https://d111111abcdef8.cloudfront.net/assets/stream?fallback=backup.mp4&Signature=abc&Key-Pair-Id=K2",
+    };
+
+    @Benchmark
+    public void detectType(Blackhole bh) {
+        for (String url : urls) bh.consume(MediaSourceInfo.detectType(url));
+    }
+
+    @Benchmark
+    public void legacyContainsScan(Blackhole bh) {
+        for (String url : urls) bh.consume(legacyDetectType(url));
+    }
+
+    // The implementation detectType replaced, kept as a baseline
+    private static String legacyDetectType(String url) {
+        if (url.contains(".m3u8")) return "hls";
+        if (url.contains(".mpd")) return "dash";
+        if (url.contains(".ism")) return "smoothstreaming";
+        if (url.contains(".mp4")) return "mp4";
+        if (url.contains(".webm")) return "webm";
+        if (url.contains(".mkv")) return "mkv";
+        return "mp4";
+    }
+}
@@ -0,0 +1,26 @@
+package com.unifiedvideo.player;
+
+import com.unifiedvideo.player.drm.DrmSchemes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** DRM type name to scheme UUID, resolved for every DRM media item. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DrmSchemeBenchmark {
+    private final String[] types = {"widevine", "Widevine", "playready", "PlayReady", "clearkey", "unknown"};
+
+    @Benchmark
+    public void uuidFor(Blackhole bh) {
+        for (String type : types) bh.consume(DrmSchemes.uuidFor(type));
+    }
+}
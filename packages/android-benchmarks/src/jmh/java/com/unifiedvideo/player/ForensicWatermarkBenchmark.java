@@ -0,0 +1,40 @@
+package com.unifiedvideo.player;
+
+import com.unifiedvideo.player.overlay.ForensicWatermark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forensic watermark encode (once per session on device) and decode (per capture, off device).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ForensicWatermarkBenchmark {
+    private final ForensicWatermark watermark = new ForensicWatermark(0x5EEDL);
+    private int[] capture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        capture = watermark.encode("session-1", "user-1");
+    }
+
+    @Benchmark
+    public int[] encode() {
+        return watermark.encode("session-1", "user-1");
+    }
+
+    @Benchmark
+    public Long decode() {
+        return watermark.decode(capture);
+    }
+}
@@ -0,0 +1,39 @@
+package com.unifiedvideo.player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of building a configuration, paid on every player initialize(). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerConfigurationBenchmark {
+
+    @Benchmark
+    public PlayerConfiguration defaults() {
+        return new PlayerConfiguration.Builder().build();
+    }
+
+    @Benchmark
+    public PlayerConfiguration typical() {
+        return new PlayerConfiguration.Builder()
+            .setAutoPlay(true)
+            .setCacheEnabled(true)
+            .setUsePlayerPool(true)
+            .setAsyncAnalytics(true)
+            .setBufferProfile("fast-start")
+            .setAbrConfiguration(new AbrConfiguration.Builder()
+                .setMaxVideoSize(1920, 1080)
+                .setUseLastBandwidthEstimate(true)
+                .build())
+            .setManifestCacheEnabled(true)
+            .setManifestCacheTtlMs("hls", 60_000)
+            .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.unifiedvideo.player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SubtitleTrack#resolvedMimeType()}, called per subtitle by createMediaSource and
+ * castCurrentMedia: a declared MIME type, and one resolved from a signed URL's extension.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SubtitleMimeTypeBenchmark {
+
+    private final SubtitleTrack declared =
+        new SubtitleTrack("https://cdn.example.com/subs/en.vtt", "en", "English");
+    private final SubtitleTrack fromUrl =
+        new SubtitleTrack("https://cdn.example.com/subs/en.srt?token=abc", "en", "English", "subtitles", null);
+
+    @Benchmark
+    public String declaredMimeType() {
+        return declared.resolvedMimeType();
+    }
+
+    @Benchmark
+    public String mimeTypeFromUrl() {
+        return fromUrl.resolvedMimeType();
+    }
+}
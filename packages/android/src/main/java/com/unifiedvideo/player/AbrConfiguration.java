@@ -0,0 +1,135 @@
+/**
+ * AbrConfiguration.java
+ * Adaptive bitrate settings for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player;
+
+/**
+ * Adaptive bitrate settings: where the bandwidth estimate starts, how aggressively the
+ * player switches renditions, and which video sizes it may pick.
+ */
+public final class AbrConfiguration {
+    /** Let the bandwidth meter pick its own network-type based starting estimate. */
+    public static final long DEFAULT_INITIAL_BITRATE = -1;
+
+    public final long initialBitrateEstimate;
+    public final float bandwidthFraction;
+    public final int minDurationForQualityIncreaseMs;
+    public final int maxDurationForQualityDecreaseMs;
+    public final int minDurationToRetainAfterDiscardMs;
+    public final int maxVideoWidth;
+    public final int maxVideoHeight;
+    public final boolean limitToDisplaySize;
+    public final boolean limitToViewSize;
+    public final boolean useLastBandwidthEstimate;
+
+    private AbrConfiguration(Builder builder) {
+        this.initialBitrateEstimate = builder.initialBitrateEstimate;
+        this.bandwidthFraction = builder.bandwidthFraction;
+        this.minDurationForQualityIncreaseMs = builder.minDurationForQualityIncreaseMs;
+        this.maxDurationForQualityDecreaseMs = builder.maxDurationForQualityDecreaseMs;
+        this.minDurationToRetainAfterDiscardMs = builder.minDurationToRetainAfterDiscardMs;
+        this.maxVideoWidth = builder.maxVideoWidth;
+        this.maxVideoHeight = builder.maxVideoHeight;
+        this.limitToDisplaySize = builder.limitToDisplaySize;
+        this.limitToViewSize = builder.limitToViewSize;
+        this.useLastBandwidthEstimate = builder.useLastBandwidthEstimate;
+    }
+
+    /**
+     * Builder class for AbrConfiguration
+     */
+    public static class Builder {
+        private long initialBitrateEstimate = DEFAULT_INITIAL_BITRATE;
+        private float bandwidthFraction = 0.7f;
+        private int minDurationForQualityIncreaseMs = 10_000;
+        private int maxDurationForQualityDecreaseMs = 25_000;
+        private int minDurationToRetainAfterDiscardMs = 25_000;
+        private int maxVideoWidth = Integer.MAX_VALUE;
+        private int maxVideoHeight = Integer.MAX_VALUE;
+        private boolean limitToDisplaySize = true;
+        private boolean limitToViewSize = false;
+        private boolean useLastBandwidthEstimate = false;
+
+        public Builder() {
+        }
+
+        /** Bandwidth assumed before the first measurement, in bits per second. */
+        public Builder setInitialBitrateEstimate(long bitsPerSecond) {
+            this.initialBitrateEstimate = bitsPerSecond;
+            return this;
+        }
+
+        /** Share of the measured bandwidth a rendition may use. */
+        public Builder setBandwidthFraction(float fraction) {
+            this.bandwidthFraction = fraction;
+            return this;
+        }
+
+        /** Buffered media required before switching to a higher rendition. */
+        public Builder setMinDurationForQualityIncreaseMs(int durationMs) {
+            this.minDurationForQualityIncreaseMs = durationMs;
+            return this;
+        }
+
+        /** Above this much buffered media the player does not switch down. */
+        public Builder setMaxDurationForQualityDecreaseMs(int durationMs) {
+            this.maxDurationForQualityDecreaseMs = durationMs;
+            return this;
+        }
+
+        /** Buffered media kept when already-buffered chunks are discarded for a higher rendition. */
+        public Builder setMinDurationToRetainAfterDiscardMs(int durationMs) {
+            this.minDurationToRetainAfterDiscardMs = durationMs;
+            return this;
+        }
+
+        public Builder setMaxVideoSize(int width, int height) {
+            this.maxVideoWidth = width;
+            this.maxVideoHeight = height;
+            return this;
+        }
+
+        /** Skip renditions larger than the device's physical display. */
+        public Builder setLimitToDisplaySize(boolean limit) {
+            this.limitToDisplaySize = limit;
+            return this;
+        }
+
+        /** Skip renditions larger than the player view; overrides the display limit while laid out. */
+        public Builder setLimitToViewSize(boolean limit) {
+            this.limitToViewSize = limit;
+            return this;
+        }
+
+        /** Seed the bandwidth estimate from measurements persisted by earlier sessions. */
+        public Builder setUseLastBandwidthEstimate(boolean use) {
+            this.useLastBandwidthEstimate = use;
+            return this;
+        }
+
+        public AbrConfiguration build() {
+            if (bandwidthFraction <= 0f || bandwidthFraction > 1f) {
+                throw new IllegalArgumentException("bandwidthFraction must be in (0, 1]");
+            }
+            return new AbrConfiguration(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AbrConfiguration{" +
+                "initialBitrateEstimate=" + initialBitrateEstimate +
+                ", bandwidthFraction=" + bandwidthFraction +
+                ", minDurationForQualityIncreaseMs=" + minDurationForQualityIncreaseMs +
+                ", maxDurationForQualityDecreaseMs=" + maxDurationForQualityDecreaseMs +
+                ", minDurationToRetainAfterDiscardMs=" + minDurationToRetainAfterDiscardMs +
+                ", maxVideoWidth=" + maxVideoWidth +
+                ", maxVideoHeight=" + maxVideoHeight +
+                ", limitToDisplaySize=" + limitToDisplaySize +
+                ", limitToViewSize=" + limitToViewSize +
+                ", useLastBandwidthEstimate=" + useLastBandwidthEstimate +
+                '}';
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * BufferProfile.java
+ * Buffering policy for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player;
+
+import java.util.Locale;
+
+/**
+ * Buffer durations and memory budget applied to the player's LoadControl.
+ * Use one of the named profiles or build a custom one.
+ */
+public final class BufferProfile {
+    /** No byte budget: buffer by duration only. */
+    public static final int UNSET_BYTES = -1;
+
+    /** ExoPlayer's own defaults. */
+    public static final BufferProfile DEFAULT = new Builder("default")
+            .setBufferDurationsMs(50_000, 50_000, 2_500, 5_000)
+            .build();
+
+    /** Starts playback after a short buffer; suited to feeds and zapping. */
+    public static final BufferProfile FAST_START = new Builder("fast-start")
+            .setBufferDurationsMs(15_000, 30_000, 1_000, 2_500)
+            .setPrioritizeTimeOverSizeThresholds(true)
+            .build();
+
+    /** Small forward buffer with a hard byte cap for low-RAM devices. */
+    public static final BufferProfile LOW_MEMORY = new Builder("low-memory")
+            .setBufferDurationsMs(10_000, 20_000, 2_500, 5_000)
+            .setTargetBufferBytes(16 * 1024 * 1024)
+            .build();
+
+    /** Stays close to the live edge with a shallow buffer. */
+    public static final BufferProfile LIVE_EDGE = new Builder("live-edge")
+            .setBufferDurationsMs(6_000, 12_000, 1_000, 2_000)
+            .setPrioritizeTimeOverSizeThresholds(true)
+            .build();
+
+    /** Deep forward and back buffer for long-form VOD on good networks. */
+    public static final BufferProfile LONG_BUFFER = new Builder("long-buffer")
+            .setBufferDurationsMs(60_000, 120_000, 2_500, 5_000)
+            .setBackBufferMs(30_000)
+            .build();
+
+    public final String name;
+    public final int minBufferMs;
+    public final int maxBufferMs;
+    public final int bufferForPlaybackMs;
+    public final int bufferForPlaybackAfterRebufferMs;
+    public final int backBufferMs;
+    public final int targetBufferBytes;
+    public final boolean prioritizeTimeOverSizeThresholds;
+
+    private BufferProfile(Builder builder) {
+        this.name = builder.name;
+        this.minBufferMs = builder.minBufferMs;
+        this.maxBufferMs = builder.maxBufferMs;
+        this.bufferForPlaybackMs = builder.bufferForPlaybackMs;
+        this.bufferForPlaybackAfterRebufferMs = builder.bufferForPlaybackAfterRebufferMs;
+        this.backBufferMs = builder.backBufferMs;
+        this.targetBufferBytes = builder.targetBufferBytes;
+        this.prioritizeTimeOverSizeThresholds = builder.prioritizeTimeOverSizeThresholds;
+    }
+
+    /**
+     * Look up a named profile ("default", "fast-start", "low-memory", "live-edge", "long-buffer").
+     * Unknown names fall back to {@link #DEFAULT}.
+     */
+    public static BufferProfile forName(String name) {
+        if (name == null) return DEFAULT;
+        switch (name.toLowerCase(Locale.US)) {
+            case "fast-start":
+                return FAST_START;
+            case "low-memory":
+                return LOW_MEMORY;
+            case "live-edge":
+                return LIVE_EDGE;
+            case "long-buffer":
+                return LONG_BUFFER;
+            default:
+                return DEFAULT;
+        }
+    }
+
+    /**
+     * Builder class for BufferProfile
+     */
+    public static class Builder {
+        private final String name;
+        private int minBufferMs = 50_000;
+        private int maxBufferMs = 50_000;
+        private int bufferForPlaybackMs = 2_500;
+        private int bufferForPlaybackAfterRebufferMs = 5_000;
+        private int backBufferMs = 0;
+        private int targetBufferBytes = UNSET_BYTES;
+        private boolean prioritizeTimeOverSizeThresholds = false;
+
+        public Builder() {
+            this("custom");
+        }
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder setBufferDurationsMs(int minBufferMs, int maxBufferMs,
+                                            int bufferForPlaybackMs, int bufferForPlaybackAfterRebufferMs) {
+            this.minBufferMs = minBufferMs;
+            this.maxBufferMs = maxBufferMs;
+            this.bufferForPlaybackMs = bufferForPlaybackMs;
+            this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+            return this;
+        }
+
+        public Builder setBackBufferMs(int backBufferMs) {
+            this.backBufferMs = backBufferMs;
+            return this;
+        }
+
+        /** Memory budget for buffered media, or {@link #UNSET_BYTES} to buffer by duration only. */
+        public Builder setTargetBufferBytes(int targetBufferBytes) {
+            this.targetBufferBytes = targetBufferBytes;
+            return this;
+        }
+
+        /** Keep buffering up to minBufferMs even past the byte budget. Off by default, as in ExoPlayer. */
+        public Builder setPrioritizeTimeOverSizeThresholds(boolean prioritize) {
+            this.prioritizeTimeOverSizeThresholds = prioritize;
+            return this;
+        }
+
+        public BufferProfile build() {
+            if (bufferForPlaybackMs > minBufferMs || bufferForPlaybackAfterRebufferMs > minBufferMs) {
+                throw new IllegalArgumentException("Playback thresholds must not exceed minBufferMs");
+            }
+            if (minBufferMs > maxBufferMs) {
+                throw new IllegalArgumentException("minBufferMs must not exceed maxBufferMs");
+            }
+            return new BufferProfile(this);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BufferProfile)) return false;
+        BufferProfile that = (BufferProfile) o;
+        return minBufferMs == that.minBufferMs
+                && maxBufferMs == that.maxBufferMs
+                && bufferForPlaybackMs == that.bufferForPlaybackMs
+                && bufferForPlaybackAfterRebufferMs == that.bufferForPlaybackAfterRebufferMs
+                && backBufferMs == that.backBufferMs
+                && targetBufferBytes == that.targetBufferBytes
+                && prioritizeTimeOverSizeThresholds == that.prioritizeTimeOverSizeThresholds;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = minBufferMs;
+        result = 31 * result + maxBufferMs;
+        result = 31 * result + bufferForPlaybackMs;
+        result = 31 * result + bufferForPlaybackAfterRebufferMs;
+        result = 31 * result + backBufferMs;
+        result = 31 * result + targetBufferBytes;
+        result = 31 * result + (prioritizeTimeOverSizeThresholds ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferProfile{" +
+                "name='" + name + '\'' +
+                ", minBufferMs=" + minBufferMs +
+                ", maxBufferMs=" + maxBufferMs +
+                ", bufferForPlaybackMs=" + bufferForPlaybackMs +
+                ", bufferForPlaybackAfterRebufferMs=" + bufferForPlaybackAfterRebufferMs +
+                ", backBufferMs=" + backBufferMs +
+                ", targetBufferBytes=" + targetBufferBytes +
+                ", prioritizeTimeOverSizeThresholds=" + prioritizeTimeOverSizeThresholds +
+                '}';
+    }
+}
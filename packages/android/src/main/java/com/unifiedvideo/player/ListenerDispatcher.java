@@ -0,0 +1,422 @@
+/**
+ * ListenerDispatcher.java
+ * PlayerEventListener delivery for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player;
+
+import android.util.Log;
+import android.view.Choreographer;
+
+import androidx.annotation.Nullable;
+
+import com.unifiedvideo.player.UnifiedVideoPlayer.PlayerEventListener;
+import com.unifiedvideo.player.UnifiedVideoPlayer.PlayerState;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Fans player events out to the registered listeners. A listener registered with
+ * {@link #DIRECT} is called synchronously on the main thread. Any other executor gets
+ * the events batched per display frame: they are queued and handed over as one task
+ * from a {@link Choreographer} callback, with progress updates coalesced to the latest.
+ * Events are pooled, so steady-state delivery does not allocate. Called on the main thread.
+ */
+final class ListenerDispatcher implements PlayerEventListener, Choreographer.FrameCallback {
+    private static final String TAG = "UVF-Listeners";
+
+    /** Runs events on the player's main thread as they happen, without batching. */
+    static final Executor DIRECT = Runnable::run;
+
+    private static final Registration[] EMPTY = new Registration[0];
+
+    /** Replaced on every add or remove, so dispatch iterates a stable array without locking or allocating. */
+    private Registration[] registrations = EMPTY;
+    private boolean frameScheduled;
+
+    /** Register {@code listener}; returns false if it is already registered. */
+    boolean add(PlayerEventListener listener, Executor executor) {
+        Registration[] current = registrations;
+        if (indexOf(current, listener) >= 0) return false;
+        Registration[] next = new Registration[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = new Registration(listener, executor);
+        registrations = next;
+        return true;
+    }
+
+    /** Unregister {@code listener}; queued events not yet handed to its executor are dropped. */
+    boolean remove(PlayerEventListener listener) {
+        Registration[] current = registrations;
+        int index = indexOf(current, listener);
+        if (index < 0) return false;
+        current[index].remove();
+        if (current.length == 1) {
+            registrations = EMPTY;
+            return true;
+        }
+        Registration[] next = new Registration[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        registrations = next;
+        return true;
+    }
+
+    private static int indexOf(Registration[] registrations, PlayerEventListener listener) {
+        for (int i = 0; i < registrations.length; i++) {
+            if (registrations[i].listener == listener) return i;
+        }
+        return -1;
+    }
+
+    // PlayerEventListener
+
+    @Override
+    public void onReady() {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onReady();
+            else enqueue(r, Event.obtain(Event.READY));
+        }
+    }
+
+    @Override
+    public void onPlay() {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onPlay();
+            else enqueue(r, Event.obtain(Event.PLAY));
+        }
+    }
+
+    @Override
+    public void onPause() {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onPause();
+            else enqueue(r, Event.obtain(Event.PAUSE));
+        }
+    }
+
+    @Override
+    public void onTimeUpdate(long currentTime) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onTimeUpdate(currentTime);
+            else enqueue(r, Event.obtain(Event.TIME_UPDATE).withLongs(currentTime, 0, 0));
+        }
+    }
+
+    @Override
+    public void onBuffering(boolean isBuffering) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onBuffering(isBuffering);
+            else enqueue(r, Event.obtain(Event.BUFFERING).withFlag(isBuffering));
+        }
+    }
+
+    @Override
+    public void onSeek(long position) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onSeek(position);
+            else enqueue(r, Event.obtain(Event.SEEK).withLongs(position, 0, 0));
+        }
+    }
+
+    @Override
+    public void onEnded() {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onEnded();
+            else enqueue(r, Event.obtain(Event.ENDED));
+        }
+    }
+
+    @Override
+    public void onError(Exception error) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onError(error);
+            else enqueue(r, Event.obtain(Event.ERROR).withObject(error));
+        }
+    }
+
+    @Override
+    public void onLoadedMetadata(Map<String, Object> metadata) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onLoadedMetadata(metadata);
+            else enqueue(r, Event.obtain(Event.LOADED_METADATA).withObject(metadata));
+        }
+    }
+
+    @Override
+    public void onVolumeChange(float volume) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onVolumeChange(volume);
+            else enqueue(r, Event.obtain(Event.VOLUME).withFloat(volume));
+        }
+    }
+
+    @Override
+    public void onStateChange(PlayerState state) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onStateChange(state);
+            else enqueue(r, Event.obtain(Event.STATE).withObject(state));
+        }
+    }
+
+    @Override
+    public void onProgress(long bufferedPosition) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onProgress(bufferedPosition);
+            else enqueue(r, Event.obtain(Event.PROGRESS).withLongs(bufferedPosition, 0, 0));
+        }
+    }
+
+    @Override
+    public void onVideoSizeChanged(int width, int height) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onVideoSizeChanged(width, height);
+            else enqueue(r, Event.obtain(Event.VIDEO_SIZE).withLongs(width, height, 0));
+        }
+    }
+
+    @Override
+    public void onProgressUpdate(long currentTime, long bufferedPosition, long duration) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) {
+                r.listener.onProgressUpdate(currentTime, bufferedPosition, duration);
+                continue;
+            }
+            // Only the latest position of a frame matters
+            if (r.pendingProgress == null) {
+                r.pendingProgress = Event.obtain(Event.PROGRESS_UPDATE);
+                enqueue(r, r.pendingProgress);
+            }
+            r.pendingProgress.withLongs(currentTime, bufferedPosition, duration);
+        }
+    }
+
+    @Override
+    public void onPlaylistItemChanged(int index, String url, boolean autoAdvance) {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onPlaylistItemChanged(index, url, autoAdvance);
+            else enqueue(r, Event.obtain(Event.PLAYLIST_ITEM).withLongs(index, 0, 0).withObject(url).withFlag(autoAdvance));
+        }
+    }
+
+    @Override
+    public void onPlaylistEnded() {
+        for (Registration r : registrations) {
+            if (r.removed) continue;
+            if (r.direct) r.listener.onPlaylistEnded();
+            else enqueue(r, Event.obtain(Event.PLAYLIST_ENDED));
+        }
+    }
+
+    // Frame batching
+
+    private void enqueue(Registration r, Event event) {
+        r.pending.add(event);
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        for (Registration r : registrations) r.flush();
+    }
+
+    /** One listener and where its events run. */
+    private static final class Registration {
+        final PlayerEventListener listener;
+        final Executor executor;
+        final boolean direct;
+
+        // Main thread only
+        ArrayList<Event> pending = new ArrayList<>();
+        @Nullable Event pendingProgress;
+
+        // Shared with the executor thread, guarded by this
+        private final ArrayList<Batch> spareBatches = new ArrayList<>();
+        volatile boolean removed;
+
+        Registration(PlayerEventListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+            this.direct = executor == DIRECT;
+        }
+
+        /** Hand this frame's events to the executor as one task. */
+        void flush() {
+            if (pending.isEmpty()) return;
+            Batch batch;
+            synchronized (this) {
+                int last = spareBatches.size() - 1;
+                batch = last >= 0 ? spareBatches.remove(last) : new Batch(this);
+            }
+            ArrayList<Event> events = pending;
+            pending = batch.events;
+            batch.events = events;
+            pendingProgress = null;
+            executor.execute(batch);
+        }
+
+        void remove() {
+            removed = true;
+            for (int i = 0, n = pending.size(); i < n; i++) pending.get(i).recycle();
+            pending.clear();
+            pendingProgress = null;
+        }
+
+        synchronized void recycle(Batch batch) {
+            spareBatches.add(batch);
+        }
+    }
+
+    /** Events of one frame for one listener, run on its executor. */
+    private static final class Batch implements Runnable {
+        final Registration registration;
+        ArrayList<Event> events = new ArrayList<>();
+
+        Batch(Registration registration) {
+            this.registration = registration;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0, n = events.size(); i < n; i++) {
+                Event event = events.get(i);
+                if (!registration.removed) {
+                    try {
+                        event.deliver(registration.listener);
+                    } catch (Exception e) {
+                        Log.w(TAG, "Listener failed on event " + event.type, e);
+                    }
+                }
+                event.recycle();
+            }
+            events.clear();
+            registration.recycle(this);
+        }
+    }
+
+    /** One queued callback with its arguments; pooled across threads. */
+    private static final class Event {
+        static final int READY = 0;
+        static final int PLAY = 1;
+        static final int PAUSE = 2;
+        static final int TIME_UPDATE = 3;
+        static final int BUFFERING = 4;
+        static final int SEEK = 5;
+        static final int ENDED = 6;
+        static final int ERROR = 7;
+        static final int LOADED_METADATA = 8;
+        static final int VOLUME = 9;
+        static final int STATE = 10;
+        static final int PROGRESS = 11;
+        static final int VIDEO_SIZE = 12;
+        static final int PROGRESS_UPDATE = 13;
+        static final int PLAYLIST_ITEM = 14;
+        static final int PLAYLIST_ENDED = 15;
+
+        private static final int MAX_POOL_SIZE = 64;
+        private static final Object POOL_LOCK = new Object();
+        private static Event pool;
+        private static int poolSize;
+
+        int type;
+        long a;
+        long b;
+        long c;
+        float f;
+        boolean flag;
+        Object object;
+        private Event next;
+
+        static Event obtain(int type) {
+            Event event;
+            synchronized (POOL_LOCK) {
+                event = pool;
+                if (event != null) {
+                    pool = event.next;
+                    event.next = null;
+                    poolSize--;
+                }
+            }
+            if (event == null) event = new Event();
+            event.type = type;
+            return event;
+        }
+
+        Event withLongs(long a, long b, long c) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            return this;
+        }
+
+        Event withFloat(float f) {
+            this.f = f;
+            return this;
+        }
+
+        Event withFlag(boolean flag) {
+            this.flag = flag;
+            return this;
+        }
+
+        Event withObject(Object object) {
+            this.object = object;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        void deliver(PlayerEventListener listener) {
+            switch (type) {
+                case READY: listener.onReady(); break;
+                case PLAY: listener.onPlay(); break;
+                case PAUSE: listener.onPause(); break;
+                case TIME_UPDATE: listener.onTimeUpdate(a); break;
+                case BUFFERING: listener.onBuffering(flag); break;
+                case SEEK: listener.onSeek(a); break;
+                case ENDED: listener.onEnded(); break;
+                case ERROR: listener.onError((Exception) object); break;
+                case LOADED_METADATA: listener.onLoadedMetadata((Map<String, Object>) object); break;
+                case VOLUME: listener.onVolumeChange(f); break;
+                case STATE: listener.onStateChange((PlayerState) object); break;
+                case PROGRESS: listener.onProgress(a); break;
+                case VIDEO_SIZE: listener.onVideoSizeChanged((int) a, (int) b); break;
+                case PROGRESS_UPDATE: listener.onProgressUpdate(a, b, c); break;
+                case PLAYLIST_ITEM: listener.onPlaylistItemChanged((int) a, (String) object, flag); break;
+                case PLAYLIST_ENDED: listener.onPlaylistEnded(); break;
+                default: break;
+            }
+        }
+
+        void recycle() {
+            object = null;
+            synchronized (POOL_LOCK) {
+                if (poolSize < MAX_POOL_SIZE) {
+                    next = pool;
+                    pool = this;
+                    poolSize++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * MediaSourceFactoryRegistry.java
+ * Reusable MediaSource factories for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.MediaItem;
+import com.google.android.exoplayer2.drm.DefaultDrmSessionManagerProvider;
+import com.google.android.exoplayer2.drm.DrmSessionManagerProvider;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.ProgressiveMediaSource;
+import com.google.android.exoplayer2.source.dash.DashMediaSource;
+import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifestParser;
+import com.google.android.exoplayer2.source.hls.HlsDataSourceFactory;
+import com.google.android.exoplayer2.source.hls.HlsMediaSource;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMultivariantPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParser;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParserFactory;
+import com.google.android.exoplayer2.source.smoothstreaming.DefaultSsChunkSource;
+import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
+import com.google.android.exoplayer2.source.smoothstreaming.manifest.SsManifestParser;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.ParsingLoadable;
+import com.unifiedvideo.player.cache.ManifestCache;
+import com.unifiedvideo.player.util.ContentTypeResolver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds each MediaSource factory once per player configuration and reuses it across loads,
+ * so zapping between channels does not rebuild factories and data source stacks.
+ * Apps can register factories for their own {@code MediaSourceInfo.type} values.
+ * Must be used from the main thread.
+ */
+public final class MediaSourceFactoryRegistry {
+    public static final String TYPE_HLS = ContentTypeResolver.TYPE_HLS;
+    public static final String TYPE_DASH = ContentTypeResolver.TYPE_DASH;
+    public static final String TYPE_SMOOTH_STREAMING = ContentTypeResolver.TYPE_SMOOTH_STREAMING;
+    public static final String TYPE_PROGRESSIVE = ContentTypeResolver.TYPE_PROGRESSIVE;
+
+    /** Builds a factory from the player's manifest and media data source factories. */
+    public interface FactoryBuilder {
+        MediaSource.Factory build(DataSource.Factory manifestDataSourceFactory, DataSource.Factory mediaDataSourceFactory);
+    }
+
+    private static final Map<String, FactoryBuilder> customBuilders = new HashMap<>();
+
+    private final DataSource.Factory manifestDataSourceFactory;
+    private final DataSource.Factory mediaDataSourceFactory;
+    @Nullable private final ManifestCache manifestCache;
+    private final Map<String, MediaSource.Factory> factories = new HashMap<>();
+    private final DrmSessionManagerProvider defaultDrmSessionManagerProvider = new DefaultDrmSessionManagerProvider();
+
+    /**
+     * @param manifestCache when set, built-in adaptive factories parse manifests through it
+     */
+    MediaSourceFactoryRegistry(DataSource.Factory manifestDataSourceFactory, DataSource.Factory mediaDataSourceFactory,
+                               @Nullable ManifestCache manifestCache) {
+        this.manifestDataSourceFactory = manifestDataSourceFactory;
+        this.mediaDataSourceFactory = mediaDataSourceFactory;
+        this.manifestCache = manifestCache;
+    }
+
+    /**
+     * Register a factory for a custom source type, or replace a built-in one. Applies to
+     * players that have not yet built a factory for that type.
+     */
+    public static synchronized void register(String type, FactoryBuilder builder) {
+        customBuilders.put(type, builder);
+    }
+
+    public static synchronized void unregister(String type) {
+        customBuilders.remove(type);
+    }
+
+    @Nullable
+    private static synchronized FactoryBuilder customBuilder(String type) {
+        return customBuilders.get(type);
+    }
+
+    DataSource.Factory getManifestDataSourceFactory() {
+        return manifestDataSourceFactory;
+    }
+
+    DataSource.Factory getMediaDataSourceFactory() {
+        return mediaDataSourceFactory;
+    }
+
+    /**
+     * Create a source with the cached factory for {@code type}. Factories resolve the DRM
+     * provider while creating the source, so the provider is swapped in per call.
+     */
+    MediaSource createMediaSource(String type, MediaItem mediaItem, @Nullable DrmSessionManagerProvider drmSessionManagerProvider) {
+        MediaSource.Factory factory = getFactory(type);
+        factory.setDrmSessionManagerProvider(drmSessionManagerProvider != null
+            ? drmSessionManagerProvider
+            : defaultDrmSessionManagerProvider);
+        return factory.createMediaSource(mediaItem);
+    }
+
+    MediaSource.Factory getFactory(String type) {
+        FactoryBuilder custom = customBuilder(type);
+        // All progressive containers (mp4, webm, mkv...) share one factory
+        String key = custom != null || isAdaptive(type) ? type : TYPE_PROGRESSIVE;
+        MediaSource.Factory factory = factories.get(key);
+        if (factory == null) {
+            factory = custom != null
+                ? custom.build(manifestDataSourceFactory, mediaDataSourceFactory)
+                : buildDefaultFactory(key);
+            factories.put(key, factory);
+        }
+        return factory;
+    }
+
+    private static boolean isAdaptive(String type) {
+        return TYPE_HLS.equals(type) || TYPE_DASH.equals(type) || TYPE_SMOOTH_STREAMING.equals(type);
+    }
+
+    private MediaSource.Factory buildDefaultFactory(String type) {
+        switch (type) {
+            case TYPE_HLS:
+                HlsDataSourceFactory hlsDataSourceFactory = dataType -> dataType == C.DATA_TYPE_MANIFEST
+                    ? manifestDataSourceFactory.createDataSource()
+                    : mediaDataSourceFactory.createDataSource();
+                HlsMediaSource.Factory hlsFactory = new HlsMediaSource.Factory(hlsDataSourceFactory);
+                if (manifestCache != null) hlsFactory.setPlaylistParserFactory(new CachingHlsPlaylistParserFactory(manifestCache));
+                return hlsFactory;
+            case TYPE_DASH:
+                DashMediaSource.Factory dashFactory = new DashMediaSource.Factory(
+                    new DefaultDashChunkSource.Factory(mediaDataSourceFactory), manifestDataSourceFactory);
+                if (manifestCache != null) dashFactory.setManifestParser(manifestCache.wrap(new DashManifestParser(), TYPE_DASH));
+                return dashFactory;
+            case TYPE_SMOOTH_STREAMING:
+                SsMediaSource.Factory ssFactory = new SsMediaSource.Factory(
+                    new DefaultSsChunkSource.Factory(mediaDataSourceFactory), manifestDataSourceFactory);
+                if (manifestCache != null) ssFactory.setManifestParser(manifestCache.wrap(new SsManifestParser(), TYPE_SMOOTH_STREAMING));
+                return ssFactory;
+            default:
+                return new ProgressiveMediaSource.Factory(mediaDataSourceFactory);
+        }
+    }
+
+    private static final class CachingHlsPlaylistParserFactory implements HlsPlaylistParserFactory {
+        private final ManifestCache manifestCache;
+
+        CachingHlsPlaylistParserFactory(ManifestCache manifestCache) {
+            this.manifestCache = manifestCache;
+        }
+
+        @Override
+        public ParsingLoadable.Parser<HlsPlaylist> createPlaylistParser() {
+            return manifestCache.wrap(new HlsPlaylistParser(), TYPE_HLS);
+        }
+
+        @Override
+        public ParsingLoadable.Parser<HlsPlaylist> createPlaylistParser(HlsMultivariantPlaylist multivariantPlaylist,
+                                                                         @Nullable HlsMediaPlaylist previousMediaPlaylist) {
+            return manifestCache.wrap(new HlsPlaylistParser(multivariantPlaylist, previousMediaPlaylist), TYPE_HLS);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * PlaybackTimings.java
+ * Startup and transition timings for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player;
+
+import com.unifiedvideo.player.metrics.LatencyMetrics;
+
+/**
+ * Wall-clock timings of the operations that decide perceived startup: initialize(),
+ * load() until READY and until the first frame, seek until READY and playlist item switch
+ * until the first frame. Times are passed in by the caller (elapsed realtime), so this class
+ * is plain Java. Values are -1 until measured; load-to-first-frame and seek-to-READY are
+ * also recorded into the process-wide {@link LatencyMetrics}. Main thread only.
+ */
+public final class PlaybackTimings {
+    public static final long UNSET = -1;
+
+    private long initializeMs = UNSET;
+    private long loadToReadyMs = UNSET;
+    private long loadToFirstFrameMs = UNSET;
+    private long seekToReadyMs = UNSET;
+    private long itemSwitchMs = UNSET;
+    private int loadCount;
+    private int seekCount;
+    private int itemSwitchCount;
+
+    private final LatencyMetrics metrics;
+
+    private long loadStartMs = UNSET;
+    private long firstFrameStartMs = UNSET;
+    private long seekStartMs = UNSET;
+    private long itemSwitchStartMs = UNSET;
+
+    PlaybackTimings(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void onInitialized(long startMs, long endMs) {
+        initializeMs = endMs - startMs;
+    }
+
+    void onLoadStarted(long nowMs) {
+        loadStartMs = nowMs;
+        firstFrameStartMs = nowMs;
+        // A seek to the start position is part of the load
+        seekStartMs = UNSET;
+        itemSwitchStartMs = UNSET;
+    }
+
+    void onSeekStarted(long nowMs) {
+        if (loadStartMs == UNSET) seekStartMs = nowMs;
+    }
+
+    void onItemSwitchStarted(long nowMs) {
+        if (loadStartMs == UNSET) itemSwitchStartMs = nowMs;
+    }
+
+    /** Returns true if this completed a measurement. */
+    boolean onReady(long nowMs) {
+        if (loadStartMs != UNSET) {
+            loadToReadyMs = nowMs - loadStartMs;
+            loadStartMs = UNSET;
+            loadCount++;
+            return true;
+        }
+        if (seekStartMs != UNSET) {
+            seekToReadyMs = nowMs - seekStartMs;
+            metrics.seekToReady.record(seekToReadyMs);
+            seekStartMs = UNSET;
+            seekCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /** Returns true if this completed a measurement. */
+    boolean onFirstFrame(long nowMs) {
+        if (firstFrameStartMs != UNSET) {
+            loadToFirstFrameMs = nowMs - firstFrameStartMs;
+            firstFrameStartMs = UNSET;
+            metrics.loadToFirstFrame.record(loadToFirstFrameMs);
+            return true;
+        }
+        if (itemSwitchStartMs == UNSET) return false;
+        itemSwitchMs = nowMs - itemSwitchStartMs;
+        itemSwitchStartMs = UNSET;
+        itemSwitchCount++;
+        return true;
+    }
+
+    public long getInitializeMs() {
+        return initializeMs;
+    }
+
+    public long getLoadToReadyMs() {
+        return loadToReadyMs;
+    }
+
+    public long getLoadToFirstFrameMs() {
+        return loadToFirstFrameMs;
+    }
+
+    public long getSeekToReadyMs() {
+        return seekToReadyMs;
+    }
+
+    public long getItemSwitchMs() {
+        return itemSwitchMs;
+    }
+
+    /** Latest value of each timing, as a flat JSON object for benchmark harnesses. */
+    public String toJson() {
+        return "{\"initializeMs\":" + initializeMs +
+                ",\"loadToReadyMs\":" + loadToReadyMs +
+                ",\"loadToFirstFrameMs\":" + loadToFirstFrameMs +
+                ",\"seekToReadyMs\":" + seekToReadyMs +
+                ",\"itemSwitchMs\":" + itemSwitchMs +
+                ",\"loadCount\":" + loadCount +
+                ",\"seekCount\":" + seekCount +
+                ",\"itemSwitchCount\":" + itemSwitchCount +
+                '}';
+    }
+
+    @Override
+    public String toString() {
+        return "PlaybackTimings" + toJson();
+    }
+}
@@ -5,6 +5,9 @@
 
 package com.unifiedvideo.player;
 
+import com.unifiedvideo.player.analytics.AnalyticsDispatcher;
+import com.unifiedvideo.player.util.ContentTypeResolver;
+
 /**
  * Player configuration class
  */
@@ -20,6 +23,29 @@ public class PlayerConfiguration {
     public final boolean debug;
     public final boolean useStyledControls;
     public final boolean allowBackgroundPlayback;
+    public final boolean cacheEnabled;
+    public final long maxCacheBytes;
+    public final boolean cacheIgnoreQuery;
+    public final long preloadDurationMs;
+    public final boolean usePlayerPool;
+    public final long progressUpdateIntervalMs;
+    public final boolean asyncAnalytics;
+    public final int analyticsQueueCapacity;
+    public final AnalyticsDispatcher.OverflowPolicy analyticsOverflowPolicy;
+    public final long httpConnectTimeoutMs;
+    public final long httpReadTimeoutMs;
+    public final int httpMaxIdleConnections;
+    public final long httpKeepAliveMs;
+    public final BufferProfile bufferProfile;
+    public final AbrConfiguration abrConfiguration;
+    public final long drmSessionKeepAliveMs;
+    public final boolean manifestCacheEnabled;
+    public final java.util.Map<String, Long> manifestCacheTtlMs;
+    public final boolean probeContentType;
+    public final boolean watermarkLayerMode;
+    public final String forensicSessionId;
+    public final String forensicUserId;
+    public final long forensicWatermarkKey;
 
     private PlayerConfiguration(Builder builder) {
         this.autoPlay = builder.autoPlay;
@@ -33,6 +59,29 @@ public class PlayerConfiguration {
         this.debug = builder.debug;
         this.useStyledControls = builder.useStyledControls;
         this.allowBackgroundPlayback = builder.allowBackgroundPlayback;
+        this.cacheEnabled = builder.cacheEnabled;
+        this.maxCacheBytes = builder.maxCacheBytes;
+        this.cacheIgnoreQuery = builder.cacheIgnoreQuery;
+        this.preloadDurationMs = builder.preloadDurationMs;
+        this.usePlayerPool = builder.usePlayerPool;
+        this.progressUpdateIntervalMs = builder.progressUpdateIntervalMs;
+        this.asyncAnalytics = builder.asyncAnalytics;
+        this.analyticsQueueCapacity = builder.analyticsQueueCapacity;
+        this.analyticsOverflowPolicy = builder.analyticsOverflowPolicy;
+        this.httpConnectTimeoutMs = builder.httpConnectTimeoutMs;
+        this.httpReadTimeoutMs = builder.httpReadTimeoutMs;
+        this.httpMaxIdleConnections = builder.httpMaxIdleConnections;
+        this.httpKeepAliveMs = builder.httpKeepAliveMs;
+        this.bufferProfile = builder.bufferProfile;
+        this.abrConfiguration = builder.abrConfiguration;
+        this.drmSessionKeepAliveMs = builder.drmSessionKeepAliveMs;
+        this.manifestCacheEnabled = builder.manifestCacheEnabled;
+        this.manifestCacheTtlMs = java.util.Collections.unmodifiableMap(new java.util.HashMap<>(builder.manifestCacheTtlMs));
+        this.probeContentType = builder.probeContentType;
+        this.watermarkLayerMode = builder.watermarkLayerMode;
+        this.forensicSessionId = builder.forensicSessionId;
+        this.forensicUserId = builder.forensicUserId;
+        this.forensicWatermarkKey = builder.forensicWatermarkKey;
     }
 
     /**
@@ -50,8 +99,34 @@ public class PlayerConfiguration {
         private boolean debug = false;
         private boolean useStyledControls = true;
         private boolean allowBackgroundPlayback = false;
+        private boolean cacheEnabled = false;
+        private long maxCacheBytes = 256L * 1024 * 1024;
+        private boolean cacheIgnoreQuery = false;
+        private long preloadDurationMs = 10_000;
+        private boolean usePlayerPool = false;
+        private long progressUpdateIntervalMs = 100;
+        private boolean asyncAnalytics = false;
+        private int analyticsQueueCapacity = AnalyticsDispatcher.DEFAULT_CAPACITY;
+        private AnalyticsDispatcher.OverflowPolicy analyticsOverflowPolicy = AnalyticsDispatcher.OverflowPolicy.DROP_OLDEST;
+        private long httpConnectTimeoutMs = 8_000;
+        private long httpReadTimeoutMs = 8_000;
+        private int httpMaxIdleConnections = 5;
+        private long httpKeepAliveMs = 5 * 60 * 1000;
+        private BufferProfile bufferProfile = BufferProfile.DEFAULT;
+        private AbrConfiguration abrConfiguration = new AbrConfiguration.Builder().build();
+        private long drmSessionKeepAliveMs = 0;
+        private boolean manifestCacheEnabled = false;
+        private final java.util.Map<String, Long> manifestCacheTtlMs = new java.util.HashMap<>();
+        private boolean probeContentType = false;
+        private boolean watermarkLayerMode = false;
+        private String forensicSessionId = null;
+        private String forensicUserId = null;
+        private long forensicWatermarkKey = 0;
 
         public Builder() {
+            manifestCacheTtlMs.put("hls", 5 * 60 * 1000L);
+            manifestCacheTtlMs.put("dash", 5 * 60 * 1000L);
+            manifestCacheTtlMs.put("smoothstreaming", 5 * 60 * 1000L);
         }
 
         public Builder setAutoPlay(boolean autoPlay) {
@@ -109,6 +184,150 @@ public class PlayerConfiguration {
             return this;
         }
 
+        /**
+         * Serve media segments through the shared on-disk cache so replays and
+         * back-seeks do not hit the network again.
+         */
+        public Builder setCacheEnabled(boolean enabled) {
+            this.cacheEnabled = enabled;
+            return this;
+        }
+
+        /** Byte budget of the shared cache; only the first player to open the cache applies it. */
+        public Builder setMaxCacheBytes(long bytes) {
+            this.maxCacheBytes = bytes;
+            return this;
+        }
+
+        /**
+         * Drop the whole query string from cache keys. By default only well-known
+         * CDN token parameters are ignored.
+         */
+        public Builder setCacheIgnoreQuery(boolean ignore) {
+            this.cacheIgnoreQuery = ignore;
+            return this;
+        }
+
+        /** Amount of media fetched ahead of playback when preload is "auto". */
+        public Builder setPreloadDurationMs(long durationMs) {
+            this.preloadDurationMs = durationMs;
+            return this;
+        }
+
+        /** Take players from the shared PlayerPool and return them on release() instead of destroying them. */
+        public Builder setUsePlayerPool(boolean usePool) {
+            this.usePlayerPool = usePool;
+            return this;
+        }
+
+        /** Interval of position updates at 1x speed; updates only run while playing. */
+        public Builder setProgressUpdateIntervalMs(long intervalMs) {
+            this.progressUpdateIntervalMs = intervalMs;
+            return this;
+        }
+
+        /** Deliver analytics on a background thread in batches instead of inline on the main thread. */
+        public Builder setAsyncAnalytics(boolean async) {
+            this.asyncAnalytics = async;
+            return this;
+        }
+
+        public Builder setAnalyticsQueueCapacity(int capacity) {
+            this.analyticsQueueCapacity = capacity;
+            return this;
+        }
+
+        public Builder setAnalyticsOverflowPolicy(AnalyticsDispatcher.OverflowPolicy policy) {
+            this.analyticsOverflowPolicy = policy;
+            return this;
+        }
+
+        // HTTP settings apply to the process-wide client; the first player to use it wins
+
+        public Builder setHttpConnectTimeoutMs(long timeoutMs) {
+            this.httpConnectTimeoutMs = timeoutMs;
+            return this;
+        }
+
+        public Builder setHttpReadTimeoutMs(long timeoutMs) {
+            this.httpReadTimeoutMs = timeoutMs;
+            return this;
+        }
+
+        public Builder setHttpConnectionPool(int maxIdleConnections, long keepAliveMs) {
+            this.httpMaxIdleConnections = maxIdleConnections;
+            this.httpKeepAliveMs = keepAliveMs;
+            return this;
+        }
+
+        public Builder setBufferProfile(BufferProfile profile) {
+            this.bufferProfile = profile != null ? profile : BufferProfile.DEFAULT;
+            return this;
+        }
+
+        /** Named profile: "default", "fast-start", "low-memory", "live-edge" or "long-buffer". */
+        public Builder setBufferProfile(String name) {
+            this.bufferProfile = BufferProfile.forName(name);
+            return this;
+        }
+
+        public Builder setAbrConfiguration(AbrConfiguration abr) {
+            this.abrConfiguration = abr != null ? abr : new AbrConfiguration.Builder().build();
+            return this;
+        }
+
+        /**
+         * How long DRM sessions stay open after playback stops, so reopening the same content
+         * skips the license request. Only sources whose DRM configuration has a key ID are
+         * reused, since sessions are shared per key ID. Off (0) by default.
+         */
+        public Builder setDrmSessionKeepAliveMs(long keepAliveMs) {
+            this.drmSessionKeepAliveMs = Math.max(0, keepAliveMs);
+            return this;
+        }
+
+        /** Keep parsed VOD manifests across loads; live manifests are always fetched. */
+        public Builder setManifestCacheEnabled(boolean enabled) {
+            this.manifestCacheEnabled = enabled;
+            return this;
+        }
+
+        /**
+         * How long a cached manifest of {@code type} ("hls", "dash", "smoothstreaming") is used
+         * without asking the server. After that it is revalidated with ETag / If-Modified-Since.
+         */
+        public Builder setManifestCacheTtlMs(String type, long ttlMs) {
+            this.manifestCacheTtlMs.put(type, Math.max(0, ttlMs));
+            return this;
+        }
+
+        /** Send a HEAD request to learn the type of URLs whose path has no known extension. */
+        public Builder setProbeContentType(boolean probe) {
+            this.probeContentType = probe;
+            return this;
+        }
+
+        /**
+         * Render the watermark once into a label-sized hardware layer and move it with
+         * translation only. Off by default: the watermark is then redrawn across the whole
+         * player on each move, as before.
+         */
+        public Builder setWatermarkLayerMode(boolean layerMode) {
+            this.watermarkLayerMode = layerMode;
+            return this;
+        }
+
+        /**
+         * Encode the session and user IDs into the watermark's movement pattern, so a capture
+         * can be traced back with {@code ForensicWatermark.decode} and the same key.
+         */
+        public Builder setForensicWatermark(String sessionId, String userId, long key) {
+            this.forensicSessionId = sessionId;
+            this.forensicUserId = userId;
+            this.forensicWatermarkKey = key;
+            return this;
+        }
+
         public PlayerConfiguration build() {
             return new PlayerConfiguration(this);
         }
@@ -128,6 +347,27 @@ public class PlayerConfiguration {
                 ", debug=" + debug +
                 ", useStyledControls=" + useStyledControls +
                 ", allowBackgroundPlayback=" + allowBackgroundPlayback +
+                ", cacheEnabled=" + cacheEnabled +
+                ", maxCacheBytes=" + maxCacheBytes +
+                ", cacheIgnoreQuery=" + cacheIgnoreQuery +
+                ", preloadDurationMs=" + preloadDurationMs +
+                ", usePlayerPool=" + usePlayerPool +
+                ", progressUpdateIntervalMs=" + progressUpdateIntervalMs +
+                ", asyncAnalytics=" + asyncAnalytics +
+                ", analyticsQueueCapacity=" + analyticsQueueCapacity +
+                ", analyticsOverflowPolicy=" + analyticsOverflowPolicy +
+                ", httpConnectTimeoutMs=" + httpConnectTimeoutMs +
+                ", httpReadTimeoutMs=" + httpReadTimeoutMs +
+                ", httpMaxIdleConnections=" + httpMaxIdleConnections +
+                ", httpKeepAliveMs=" + httpKeepAliveMs +
+                ", bufferProfile=" + bufferProfile +
+                ", abrConfiguration=" + abrConfiguration +
+                ", drmSessionKeepAliveMs=" + drmSessionKeepAliveMs +
+                ", manifestCacheEnabled=" + manifestCacheEnabled +
+                ", manifestCacheTtlMs=" + manifestCacheTtlMs +
+                ", probeContentType=" + probeContentType +
+                ", watermarkLayerMode=" + watermarkLayerMode +
+                ", forensicWatermark=" + (forensicUserId != null) +
                 '}';
     }
 }
@@ -160,14 +400,13 @@ class MediaSourceInfo {
         this.subtitles = subtitles;
     }
 
+    /**
+     * Source type from the URL path: "hls", "dash", "smoothstreaming" or "progressive".
+     * Unrecognised extensions resolve to "progressive".
+     */
     public static String detectType(String url) {
-        if (url.contains(".m3u8")) return "hls";
-        if (url.contains(".mpd")) return "dash";
-        if (url.contains(".ism")) return "smoothstreaming";
-        if (url.contains(".mp4")) return "mp4";
-        if (url.contains(".webm")) return "webm";
-        if (url.contains(".mkv")) return "mkv";
-        return "mp4";
+        ContentTypeResolver.ContentType type = ContentTypeResolver.resolve(url);
+        return type.sourceType != null ? type.sourceType : ContentTypeResolver.TYPE_PROGRESSIVE;
     }
 }
 
@@ -180,6 +419,8 @@ class DRMConfiguration {
     public final java.util.Map<String, String> headers;
     public final boolean multiSession;
     public final boolean forceDefaultLicenseUri;
+    public final String keyId; // optional content key ID, used to tell apart titles sharing a license URL
+    public final boolean persistLicense; // store an offline license and reuse it on later loads
 
     public DRMConfiguration(String type, String licenseUrl) {
         this(type, licenseUrl, null, false, false);
@@ -189,11 +430,30 @@ class DRMConfiguration {
                            java.util.Map<String, String> headers,
                            boolean multiSession, 
                            boolean forceDefaultLicenseUri) {
+        this(type, licenseUrl, headers, multiSession, forceDefaultLicenseUri, null);
+    }
+
+    public DRMConfiguration(String type, String licenseUrl,
+                           java.util.Map<String, String> headers,
+                           boolean multiSession,
+                           boolean forceDefaultLicenseUri,
+                           String keyId) {
+        this(type, licenseUrl, headers, multiSession, forceDefaultLicenseUri, keyId, false);
+    }
+
+    public DRMConfiguration(String type, String licenseUrl,
+                           java.util.Map<String, String> headers,
+                           boolean multiSession,
+                           boolean forceDefaultLicenseUri,
+                           String keyId,
+                           boolean persistLicense) {
         this.type = type;
         this.licenseUrl = licenseUrl;
         this.headers = headers;
         this.multiSession = multiSession;
         this.forceDefaultLicenseUri = forceDefaultLicenseUri;
+        this.keyId = keyId;
+        this.persistLicense = persistLicense;
     }
 }
 
@@ -218,4 +478,11 @@ class SubtitleTrack {
         this.kind = kind;
         this.mimeType = mimeType;
     }
+
+    /** The declared MIME type, else the one implied by the URL's extension, else WebVTT. */
+    public String resolvedMimeType() {
+        if (mimeType != null) return mimeType;
+        ContentTypeResolver.ContentType type = ContentTypeResolver.resolve(url);
+        return type.subtitle ? type.mimeType : "text/vtt";
+    }
 }
@@ -0,0 +1,86 @@
+/**
+ * ProgressScheduler.java
+ * Position update scheduling for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player;
+
+import android.os.Handler;
+
+/**
+ * Posts periodic progress ticks only while playback is running and the player is on screen.
+ * The interval shrinks at higher playback speeds so listeners see the same media-time
+ * granularity, and grows at lower ones.
+ */
+final class ProgressScheduler implements Runnable {
+    private static final long MIN_INTERVAL_MS = 16;
+
+    interface Callback {
+        void onProgressTick();
+    }
+
+    private final Handler handler;
+    private final Callback callback;
+    private final long intervalMs;
+    private float playbackSpeed = 1f;
+
+    private boolean playing;
+    private boolean attached;
+    private boolean foreground = true;
+    private boolean released;
+    private boolean running;
+
+    ProgressScheduler(Handler handler, long intervalMs, Callback callback) {
+        this.handler = handler;
+        this.intervalMs = Math.max(MIN_INTERVAL_MS, intervalMs);
+        this.callback = callback;
+    }
+
+    void setPlaybackSpeed(float speed) {
+        this.playbackSpeed = speed > 0 ? speed : 1f;
+    }
+
+    void setPlaying(boolean playing) {
+        this.playing = playing;
+        update();
+    }
+
+    void setAttached(boolean attached) {
+        this.attached = attached;
+        update();
+    }
+
+    void setForeground(boolean foreground) {
+        this.foreground = foreground;
+        update();
+    }
+
+    /** Deliver one tick immediately, e.g. after a seek while paused. */
+    void tickNow() {
+        if (!released) callback.onProgressTick();
+    }
+
+    void release() {
+        released = true;
+        update();
+    }
+
+    @Override
+    public void run() {
+        if (!running) return;
+        callback.onProgressTick();
+        handler.postDelayed(this, currentIntervalMs());
+    }
+
+    private long currentIntervalMs() {
+        return Math.max(MIN_INTERVAL_MS, (long) (intervalMs / playbackSpeed));
+    }
+
+    private void update() {
+        boolean shouldRun = playing && attached && foreground && !released;
+        if (shouldRun == running) return;
+        running = shouldRun;
+        handler.removeCallbacks(this);
+        if (shouldRun) handler.post(this);
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * QoeCollector.java
+ * Session quality-of-experience metrics for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.Tracks;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.google.android.exoplayer2.decoder.DecoderReuseEvaluation;
+import com.unifiedvideo.player.analytics.QoeSnapshot;
+
+/**
+ * Derives per-session QoE metrics from ExoPlayer analytics callbacks. A session runs from
+ * {@link #startSession} to {@link #endSession}. Callbacks arrive on the main thread.
+ * Playback has started at the first rendered frame, or for audio-only content when it first plays.
+ */
+final class QoeCollector implements AnalyticsListener {
+    private boolean active;
+    private long sessionStartMs;
+    private boolean hasVideo;
+    private long startedAtMs = QoeSnapshot.UNSET;
+
+    private boolean seeking;
+    private long rebufferStartMs = QoeSnapshot.UNSET;
+    private int rebufferCount;
+    private long rebufferDurationMs;
+
+    private long playingSinceMs = QoeSnapshot.UNSET;
+    private long playTimeMs;
+
+    private int currentBitrate = Format.NO_VALUE;
+    private long bitrateSinceMs;
+    private long bitrateTimeProduct; // bits/s * ms, over playing time with a known bitrate
+    private long bitrateTimeMs;
+    private long peakBitrate = QoeSnapshot.UNSET;
+    private int bitrateSwitchCount;
+
+    private long droppedFrames;
+    private long decoderInitTimeMs = QoeSnapshot.UNSET;
+
+    void startSession() {
+        reset();
+        active = true;
+        sessionStartMs = SystemClock.elapsedRealtime();
+    }
+
+    /** Close the session and return its final metrics, or null if none was running. */
+    @Nullable
+    QoeSnapshot endSession() {
+        if (!active) return null;
+        QoeSnapshot snapshot = snapshot(true);
+        active = false;
+        return snapshot;
+    }
+
+    QoeSnapshot snapshot() {
+        return snapshot(false);
+    }
+
+    private QoeSnapshot snapshot(boolean ended) {
+        long now = SystemClock.elapsedRealtime();
+        long rebuffer = rebufferDurationMs + (rebufferStartMs != QoeSnapshot.UNSET ? now - rebufferStartMs : 0);
+        long playing = playTimeMs + (playingSinceMs != QoeSnapshot.UNSET ? now - playingSinceMs : 0);
+        long product = bitrateTimeProduct;
+        long weightMs = bitrateTimeMs;
+        if (playingSinceMs != QoeSnapshot.UNSET && currentBitrate != Format.NO_VALUE) {
+            long since = Math.max(playingSinceMs, bitrateSinceMs);
+            product += (long) currentBitrate * (now - since);
+            weightMs += now - since;
+        }
+        long average = weightMs > 0 ? product / weightMs
+            : currentBitrate != Format.NO_VALUE ? currentBitrate : QoeSnapshot.UNSET;
+        return new QoeSnapshot(
+            startedAtMs != QoeSnapshot.UNSET ? startedAtMs - sessionStartMs : QoeSnapshot.UNSET,
+            rebufferCount, rebuffer, playing, average, peakBitrate, bitrateSwitchCount,
+            droppedFrames, decoderInitTimeMs,
+            ended && startedAtMs == QoeSnapshot.UNSET, ended);
+    }
+
+    @Override
+    public void onTracksChanged(EventTime eventTime, Tracks tracks) {
+        if (active) hasVideo = tracks.containsType(C.TRACK_TYPE_VIDEO);
+    }
+
+    @Override
+    public void onRenderedFirstFrame(EventTime eventTime, Object output, long renderTimeMs) {
+        if (active && startedAtMs == QoeSnapshot.UNSET) startedAtMs = eventTime.realtimeMs;
+    }
+
+    @Override
+    public void onPlaybackStateChanged(EventTime eventTime, int state) {
+        if (!active) return;
+        if (state == Player.STATE_BUFFERING) {
+            // Startup and seek buffering are not rebuffers
+            if (startedAtMs != QoeSnapshot.UNSET && !seeking && rebufferStartMs == QoeSnapshot.UNSET) {
+                rebufferStartMs = eventTime.realtimeMs;
+                rebufferCount++;
+            }
+        } else {
+            if (rebufferStartMs != QoeSnapshot.UNSET) {
+                rebufferDurationMs += eventTime.realtimeMs - rebufferStartMs;
+                rebufferStartMs = QoeSnapshot.UNSET;
+            }
+            if (state == Player.STATE_READY) seeking = false;
+        }
+    }
+
+    @Override
+    public void onPositionDiscontinuity(EventTime eventTime, Player.PositionInfo oldPosition,
+                                        Player.PositionInfo newPosition, int reason) {
+        if (active && reason == Player.DISCONTINUITY_REASON_SEEK) seeking = true;
+    }
+
+    @Override
+    public void onIsPlayingChanged(EventTime eventTime, boolean isPlaying) {
+        if (!active) return;
+        long now = eventTime.realtimeMs;
+        if (isPlaying) {
+            // No frame will be rendered, so audio-only playback starts when it first plays
+            if (!hasVideo && startedAtMs == QoeSnapshot.UNSET) startedAtMs = now;
+            playingSinceMs = now;
+        } else if (playingSinceMs != QoeSnapshot.UNSET) {
+            accumulateBitrate(now);
+            playTimeMs += now - playingSinceMs;
+            playingSinceMs = QoeSnapshot.UNSET;
+        }
+    }
+
+    @Override
+    public void onVideoInputFormatChanged(EventTime eventTime, Format format,
+                                          @Nullable DecoderReuseEvaluation decoderReuseEvaluation) {
+        if (!active) return;
+        if (format.bitrate == Format.NO_VALUE || format.bitrate == currentBitrate) return;
+        accumulateBitrate(eventTime.realtimeMs);
+        if (currentBitrate != Format.NO_VALUE) bitrateSwitchCount++;
+        currentBitrate = format.bitrate;
+        bitrateSinceMs = eventTime.realtimeMs;
+        peakBitrate = Math.max(peakBitrate, format.bitrate);
+    }
+
+    @Override
+    public void onDroppedVideoFrames(EventTime eventTime, int droppedFrames, long elapsedMs) {
+        if (active) this.droppedFrames += droppedFrames;
+    }
+
+    @Override
+    public void onVideoDecoderInitialized(EventTime eventTime, String decoderName,
+                                          long initializedTimestampMs, long initializationDurationMs) {
+        if (active) decoderInitTimeMs = initializationDurationMs;
+    }
+
+    /** Fold the current bitrate's playing time into the weighted average. */
+    private void accumulateBitrate(long now) {
+        if (playingSinceMs == QoeSnapshot.UNSET || currentBitrate == Format.NO_VALUE) return;
+        long since = Math.max(playingSinceMs, bitrateSinceMs);
+        bitrateTimeProduct += (long) currentBitrate * (now - since);
+        bitrateTimeMs += now - since;
+        bitrateSinceMs = now;
+    }
+
+    private void reset() {
+        hasVideo = false;
+        startedAtMs = QoeSnapshot.UNSET;
+        seeking = false;
+        rebufferStartMs = QoeSnapshot.UNSET;
+        rebufferCount = 0;
+        rebufferDurationMs = 0;
+        playingSinceMs = QoeSnapshot.UNSET;
+        playTimeMs = 0;
+        currentBitrate = Format.NO_VALUE;
+        bitrateSinceMs = 0;
+        bitrateTimeProduct = 0;
+        bitrateTimeMs = 0;
+        peakBitrate = QoeSnapshot.UNSET;
+        bitrateSwitchCount = 0;
+        droppedFrames = 0;
+        decoderInitTimeMs = QoeSnapshot.UNSET;
+    }
+}
@@ -9,6 +9,7 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Surface;
 import android.view.View;
@@ -22,6 +23,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.LoadControl;
 import com.google.android.exoplayer2.MediaItem;
@@ -31,6 +33,7 @@ import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.Timeline;
 import com.google.android.exoplayer2.analytics.AnalyticsListener;
 import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
+import com.google.android.exoplayer2.drm.DrmSession;
 import com.google.android.exoplayer2.drm.DrmSessionManager;
 import com.google.android.exoplayer2.drm.DrmSessionManagerProvider;
 import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
@@ -38,16 +41,15 @@ import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
 import com.google.android.exoplayer2.source.LoadEventInfo;
 import com.google.android.exoplayer2.source.MediaLoadData;
 import com.google.android.exoplayer2.source.MediaSource;
-import com.google.android.exoplayer2.source.ProgressiveMediaSource;
-import com.google.android.exoplayer2.source.dash.DashMediaSource;
-import com.google.android.exoplayer2.source.hls.HlsMediaSource;
-import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
+import com.google.android.exoplayer2.source.MergingMediaSource;
+import com.google.android.exoplayer2.source.SingleSampleMediaSource;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.ui.PlayerView;
 import com.google.android.exoplayer2.ui.StyledPlayerView;
-import com.google.android.exoplayer2.upstream.DefaultDataSource;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
-import com.google.android.exoplayer2.util.MimeTypes;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
 import com.google.android.exoplayer2.util.Util;
 import com.google.android.exoplayer2.video.VideoSize;
 
@@ -56,6 +58,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 // New imports
@@ -68,10 +72,27 @@ import android.app.PendingIntent;
 import android.content.Intent;
 import android.graphics.drawable.Icon;
 
+import com.unifiedvideo.player.analytics.AnalyticsDispatcher;
+import com.unifiedvideo.player.analytics.AnalyticsEvent;
 import com.unifiedvideo.player.analytics.AnalyticsProvider;
+import com.unifiedvideo.player.analytics.QoeSnapshot;
+import com.unifiedvideo.player.cache.ManifestCache;
+import com.unifiedvideo.player.cache.ManifestCacheDataSource;
+import com.unifiedvideo.player.cache.MediaCache;
+import com.unifiedvideo.player.cache.MediaPreloader;
+import com.unifiedvideo.player.drm.DrmSchemes;
+import com.unifiedvideo.player.drm.DrmSessionCache;
+import com.unifiedvideo.player.drm.OfflineLicenseStore;
+import com.unifiedvideo.player.metrics.LatencyMetrics;
+import com.unifiedvideo.player.net.BandwidthStore;
+import com.unifiedvideo.player.net.ContentTypeProbe;
+import com.unifiedvideo.player.net.HttpStack;
 import com.unifiedvideo.player.cast.CastManager;
 import com.unifiedvideo.player.cast.CastManager.SubtitleItem;
+import com.unifiedvideo.player.overlay.ForensicWatermark;
 import com.unifiedvideo.player.overlay.WatermarkOverlayView;
+import com.unifiedvideo.player.pool.PlayerPool;
+import com.unifiedvideo.player.util.ContentTypeResolver;
 
 import androidx.appcompat.widget.AppCompatButton;
 import androidx.appcompat.widget.AppCompatTextView;
@@ -89,19 +110,35 @@ public class UnifiedVideoPlayer {
 
     private static final String TAG = "UnifiedVideoPlayer";
 
+    /** Listener executor that calls listeners synchronously on the main thread. The default. */
+    public static final Executor DIRECT_EXECUTOR = ListenerDispatcher.DIRECT;
+
     // Player components
     private ExoPlayer exoPlayer;
     private View playerView;
     private ViewGroup container;
     private PlayerConfiguration configuration;
     private MediaSourceInfo currentSource;
+    private final List<MediaSourceInfo> playlist = new ArrayList<>();
     private DefaultTrackSelector trackSelector;
+    private PlayerPool.PooledPlayer pooledPlayer;
+    private boolean autoVideoQuality = true;
+    private MediaSourceFactoryRegistry mediaSourceFactories;
+    private final LatencyMetrics latencyMetrics = LatencyMetrics.getInstance();
+    private final PlaybackTimings timings = new PlaybackTimings(latencyMetrics);
+    private long drmKeyRequestMs = C.TIME_UNSET;
+    private boolean awaitingFirstSegment;
+    private final QoeCollector qoeCollector = new QoeCollector();
+    // Content keys of offline licenses in use, by media URI, so a failed restore can drop them
+    private final Map<Uri, String> offlineLicenseKeys = new HashMap<>();
 
     // Overlay
     private WatermarkOverlayView watermarkOverlay;
 
     // Analytics
-    private final List<AnalyticsProvider> analyticsProviders = new ArrayList<>();
+    // Copy-on-write: also read by the background dispatcher thread
+    private final List<AnalyticsProvider> analyticsProviders = new CopyOnWriteArrayList<>();
+    private AnalyticsDispatcher analyticsDispatcher;
 
     // Cast
     private CastManager castManager;
@@ -115,8 +152,7 @@ public class UnifiedVideoPlayer {
 
     // Handler for progress updates
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
-    private Runnable updateProgressHandler;
-    private Runnable watermarkRandomizer;
+    private ProgressScheduler progressScheduler;
 
     // State properties
     private PlayerState state = PlayerState.IDLE;
@@ -127,6 +163,7 @@ public class UnifiedVideoPlayer {
     private float volume = 1.0f;
 
     // Event listeners
+    private final ListenerDispatcher listeners = new ListenerDispatcher();
     private PlayerEventListener eventListener;
 
     /**
@@ -161,6 +198,42 @@ public class UnifiedVideoPlayer {
         void onStateChange(PlayerState state);
         void onProgress(long bufferedPosition);
         void onVideoSizeChanged(int width, int height);
+
+        /**
+         * Periodic position update, delivered only while playing and after seeks.
+         * The default forwards to {@link #onTimeUpdate} and {@link #onProgress};
+         * override it to handle both in one callback.
+         */
+        default void onProgressUpdate(long currentTime, long bufferedPosition, long duration) {
+            onTimeUpdate(currentTime);
+            onProgress(bufferedPosition);
+        }
+
+        /**
+         * The playlist moved to another item.
+         * @param autoAdvance true when the previous item played to its end, false after next(), previous() or seekToItem()
+         */
+        default void onPlaylistItemChanged(int index, String url, boolean autoAdvance) {}
+
+        /** The last playlist item finished and the playlist does not repeat. */
+        default void onPlaylistEnded() {}
+    }
+
+    /** {@link PlayerEventListener} with empty callbacks, so listeners override only what they need. */
+    public abstract static class PlayerEventListenerAdapter implements PlayerEventListener {
+        @Override public void onReady() {}
+        @Override public void onPlay() {}
+        @Override public void onPause() {}
+        @Override public void onTimeUpdate(long currentTime) {}
+        @Override public void onBuffering(boolean isBuffering) {}
+        @Override public void onSeek(long position) {}
+        @Override public void onEnded() {}
+        @Override public void onError(Exception error) {}
+        @Override public void onLoadedMetadata(Map<String, Object> metadata) {}
+        @Override public void onVolumeChange(float volume) {}
+        @Override public void onStateChange(PlayerState state) {}
+        @Override public void onProgress(long bufferedPosition) {}
+        @Override public void onVideoSizeChanged(int width, int height) {}
     }
 
     /**
@@ -177,43 +250,83 @@ public class UnifiedVideoPlayer {
      * @param configuration Player configuration (optional)
      */
     public void initialize(@NonNull ViewGroup container, @Nullable PlayerConfiguration configuration) {
+        long initStartMs = SystemClock.elapsedRealtime();
         this.container = container;
         this.configuration = configuration != null ? configuration : new PlayerConfiguration.Builder().build();
+        if (this.configuration.asyncAnalytics && analyticsDispatcher == null) {
+            analyticsDispatcher = new AnalyticsDispatcher(analyticsProviders,
+                this.configuration.analyticsQueueCapacity, this.configuration.analyticsOverflowPolicy);
+        }
 
         setupPlayer();
         applyConfiguration();
+        timings.onInitialized(initStartMs, SystemClock.elapsedRealtime());
     }
 
     /**
-     * Set event listener
+     * Set event listener, called directly on the main thread as events happen
      * @param listener Event listener implementation
      */
     public void setEventListener(PlayerEventListener listener) {
-        this.eventListener = listener;
+        setEventListener(listener, DIRECT_EXECUTOR);
+    }
+
+    /**
+     * Set event listener that runs on {@code executor}. Except for {@link #DIRECT_EXECUTOR},
+     * events are batched per display frame and handed to the executor as one task, with
+     * position updates coalesced to the latest. Pass a main-thread executor (for example
+     * {@code ContextCompat.getMainExecutor(context)}) for UI work without a post per event,
+     * or a single-thread executor to keep heavy listeners off the main thread. The executor
+     * must run tasks in order.
+     */
+    public void setEventListener(PlayerEventListener listener, @NonNull Executor executor) {
+        if (eventListener != null) listeners.remove(eventListener);
+        eventListener = listener;
+        if (listener != null) listeners.add(listener, executor);
+    }
+
+    /**
+     * Add a listener alongside the one from {@link #setEventListener}, called directly on the
+     * main thread. Adding a listener that is already registered has no effect.
+     */
+    public void addEventListener(@NonNull PlayerEventListener listener) {
+        addEventListener(listener, DIRECT_EXECUTOR);
+    }
+
+    /** Add a listener that runs on {@code executor}; see {@link #setEventListener(PlayerEventListener, Executor)}. */
+    public void addEventListener(@NonNull PlayerEventListener listener, @NonNull Executor executor) {
+        listeners.add(listener, executor);
+    }
+
+    /** Remove a listener added with {@link #addEventListener} or {@link #setEventListener}. */
+    public void removeEventListener(@NonNull PlayerEventListener listener) {
+        listeners.remove(listener);
+        if (listener == eventListener) eventListener = null;
     }
 
     /**
      * Setup the player
      */
     private void setupPlayer() {
-        // Create track selector for adaptive streaming
-        trackSelector = new DefaultTrackSelector(context);
-        trackSelector.setParameters(
-            trackSelector.buildUponParameters()
-                .setMaxVideoSizeSd()
-                .build()
-        );
-
-        // Create player
-        exoPlayer = new ExoPlayer.Builder(context)
-            .setTrackSelector(trackSelector)
-            .build();
+        // Reuse a warm player from the pool when enabled
+        PlayerPool.PooledPlayer built;
+        if (configuration.usePlayerPool) {
+            pooledPlayer = PlayerPool.getInstance(context).acquire(playerBuildKey(configuration),
+                () -> buildPlayer(context, configuration));
+            built = pooledPlayer;
+        } else {
+            built = buildPlayer(context, configuration);
+        }
+        exoPlayer = built.player;
+        trackSelector = built.trackSelector;
+        trackSelector.setParameters(applyAbrConstraints(trackSelector.buildUponParameters()).build());
         // Expose player to services (background & PiP actions)
         PlayerHolder.setPlayer(exoPlayer);
 
         // Add listeners
         exoPlayer.addListener(playerEventListener);
         exoPlayer.addAnalyticsListener(analyticsListener);
+        exoPlayer.addAnalyticsListener(qoeCollector);
 
         // Create player view
         if (configuration.useStyledControls) {
@@ -239,15 +352,30 @@ public class UnifiedVideoPlayer {
             FrameLayout.LayoutParams.MATCH_PARENT
         );
         playerView.setLayoutParams(layoutParams);
+        playerView.addOnLayoutChangeListener(viewportListener);
         container.addView(playerView);
 
         // Add watermark overlay on top (optional by default)
         watermarkOverlay = new WatermarkOverlayView(context);
-        watermarkOverlay.setLayoutParams(new FrameLayout.LayoutParams(
-            FrameLayout.LayoutParams.MATCH_PARENT,
-            FrameLayout.LayoutParams.MATCH_PARENT
-        ));
+        if (configuration.watermarkLayerMode) {
+            FrameLayout.LayoutParams wmLp = new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.WRAP_CONTENT,
+                FrameLayout.LayoutParams.WRAP_CONTENT
+            );
+            wmLp.gravity = Gravity.TOP | Gravity.START;
+            watermarkOverlay.setLayoutParams(wmLp);
+            watermarkOverlay.setLayerMode(true);
+        } else {
+            watermarkOverlay.setLayoutParams(new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.MATCH_PARENT
+            ));
+        }
         watermarkOverlay.setAlphaFactor(0.3f);
+        if (configuration.forensicSessionId != null && configuration.forensicUserId != null) {
+            watermarkOverlay.setForensicCycle(new ForensicWatermark(configuration.forensicWatermarkKey)
+                .encode(configuration.forensicSessionId, configuration.forensicUserId));
+        }
         container.addView(watermarkOverlay);
 
         // Add Cast button (top-right)
@@ -295,12 +423,105 @@ public class UnifiedVideoPlayer {
         // Start progress updates
         startProgressUpdates();
 
-        // Schedule watermark movement
-        scheduleWatermark();
+        // Move the watermark every 5 s while it is on screen
+        watermarkOverlay.startMoving(5000);
 
         updateState(PlayerState.IDLE);
     }
 
+    /**
+     * Create the ExoPlayer and its track selector
+     */
+    private static PlayerPool.PooledPlayer buildPlayer(Context context, PlayerConfiguration configuration) {
+        AbrConfiguration abr = configuration.abrConfiguration;
+
+        // Create track selector for adaptive streaming
+        DefaultTrackSelector selector = new DefaultTrackSelector(context, new AdaptiveTrackSelection.Factory(
+            abr.minDurationForQualityIncreaseMs,
+            abr.maxDurationForQualityDecreaseMs,
+            abr.minDurationToRetainAfterDiscardMs,
+            abr.bandwidthFraction));
+
+        // Create player
+        ExoPlayer.Builder builder = new ExoPlayer.Builder(context)
+            .setTrackSelector(selector)
+            .setLoadControl(buildLoadControl(configuration.bufferProfile));
+        if (abr.initialBitrateEstimate > 0 || abr.useLastBandwidthEstimate) {
+            DefaultBandwidthMeter.Builder meter = new DefaultBandwidthMeter.Builder(context);
+            if (abr.initialBitrateEstimate > 0) {
+                meter.setInitialBitrateEstimate(abr.initialBitrateEstimate);
+            }
+            // Persisted per-network estimates take precedence over the fixed one
+            if (abr.useLastBandwidthEstimate) {
+                BandwidthStore.getInstance(context).applyTo(meter);
+            }
+            builder.setBandwidthMeter(meter.build());
+        }
+        return new PlayerPool.PooledPlayer(builder.build(), selector);
+    }
+
+    /**
+     * Video size limits from the ABR configuration: the configured maximum plus either the
+     * player view or the physical display as viewport
+     */
+    private DefaultTrackSelector.Parameters.Builder applyAbrConstraints(DefaultTrackSelector.Parameters.Builder builder) {
+        AbrConfiguration abr = configuration.abrConfiguration;
+        builder.clearVideoSizeConstraints().setMaxVideoSize(abr.maxVideoWidth, abr.maxVideoHeight);
+        if (abr.limitToViewSize && playerView != null && playerView.getWidth() > 0 && playerView.getHeight() > 0) {
+            builder.setViewportSize(playerView.getWidth(), playerView.getHeight(), false);
+        } else if (abr.limitToDisplaySize) {
+            builder.setViewportSizeToPhysicalDisplaySize(context, true);
+        } else {
+            builder.clearViewportSizeConstraints();
+        }
+        return builder;
+    }
+
+    private final View.OnLayoutChangeListener viewportListener = (v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+        boolean resized = right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop;
+        if (resized && autoVideoQuality && trackSelector != null && configuration.abrConfiguration.limitToViewSize) {
+            trackSelector.setParameters(applyAbrConstraints(trackSelector.buildUponParameters()).build());
+        }
+    };
+
+    /**
+     * Create the LoadControl for a buffer profile
+     */
+    private static LoadControl buildLoadControl(BufferProfile profile) {
+        return new DefaultLoadControl.Builder()
+            .setBufferDurationsMs(
+                profile.minBufferMs,
+                profile.maxBufferMs,
+                profile.bufferForPlaybackMs,
+                profile.bufferForPlaybackAfterRebufferMs)
+            .setBackBuffer(profile.backBufferMs, true)
+            .setTargetBufferBytes(profile.targetBufferBytes)
+            .setPrioritizeTimeOverSizeThresholds(profile.prioritizeTimeOverSizeThresholds)
+            .build();
+    }
+
+    /**
+     * Identifies the build-time options of a player; pooled players are only reused for an equal key
+     */
+    private static String playerBuildKey(PlayerConfiguration configuration) {
+        return "buffer=" + configuration.bufferProfile + ", abr=" + configuration.abrConfiguration;
+    }
+
+    /**
+     * Build pooled players ahead of the first initialize() so it starts with a warm player.
+     * Players are only built for configurations with the player pool enabled; stored bandwidth
+     * estimates are loaded either way when the configuration uses them.
+     */
+    public static void prewarmPlayers(@NonNull Context context, @NonNull PlayerConfiguration configuration, int count) {
+        Context appContext = context.getApplicationContext();
+        if (configuration.abrConfiguration.useLastBandwidthEstimate) {
+            BandwidthStore.getInstance(appContext);
+        }
+        if (!configuration.usePlayerPool) return;
+        PlayerPool.getInstance(appContext).prewarm(playerBuildKey(configuration),
+            () -> buildPlayer(appContext, configuration), count);
+    }
+
     /**
      * Apply configuration to the player
      */
@@ -330,6 +551,18 @@ public class UnifiedVideoPlayer {
      * @param source Media source information
      */
     public void load(@NonNull MediaSourceInfo source) {
+        timings.onLoadStarted(SystemClock.elapsedRealtime());
+        awaitingFirstSegment = true;
+        startQoeSession();
+        if (needsContentTypeProbe(source)) {
+            probeThenLoad(source);
+            return;
+        }
+        loadResolved(source);
+    }
+
+    private void loadResolved(@NonNull MediaSourceInfo source) {
+        playlist.clear();
         currentSource = source;
         updateState(PlayerState.LOADING);
 
@@ -355,6 +588,34 @@ public class UnifiedVideoPlayer {
         }
     }
 
+    /** The URL path gave no type, so the default "progressive" is only a guess. */
+    private boolean needsContentTypeProbe(MediaSourceInfo source) {
+        return configuration.probeContentType
+            && ContentTypeResolver.TYPE_PROGRESSIVE.equals(source.type)
+            && !ContentTypeResolver.resolve(source.url).isKnown();
+    }
+
+    private void probeThenLoad(MediaSourceInfo source) {
+        ContentTypeResolver.ContentType cached = ContentTypeProbe.getCached(source.url);
+        if (cached != null) {
+            loadResolved(withSourceType(source, cached));
+            return;
+        }
+        playlist.clear();
+        currentSource = source;
+        updateState(PlayerState.LOADING);
+        ContentTypeProbe.resolveAsync(configuration, source.url, mainHandler, type -> {
+            // Released or replaced while probing
+            if (exoPlayer == null || currentSource != source) return;
+            loadResolved(withSourceType(source, type));
+        });
+    }
+
+    private static MediaSourceInfo withSourceType(MediaSourceInfo source, ContentTypeResolver.ContentType type) {
+        if (type.sourceType == null || type.sourceType.equals(source.type)) return source;
+        return new MediaSourceInfo(source.url, type.sourceType, source.drm, source.metadata, source.subtitles);
+    }
+
     /**
      * Load media from URL
      * @param url Media URL
@@ -364,15 +625,125 @@ public class UnifiedVideoPlayer {
         load(source);
     }
 
+    /**
+     * Load several items as one gapless playlist, starting at the first item.
+     * The next item is preloaded while the current one plays.
+     */
+    public void setPlaylist(@NonNull List<MediaSourceInfo> items) {
+        setPlaylist(items, 0, configuration.startTime);
+    }
+
+    /**
+     * Load several items as one gapless playlist.
+     * @param startIndex Item to start with
+     * @param startPositionMs Position within that item
+     */
+    public void setPlaylist(@NonNull List<MediaSourceInfo> items, int startIndex, long startPositionMs) {
+        if (items.isEmpty()) throw new IllegalArgumentException("Playlist is empty");
+        if (startIndex < 0 || startIndex >= items.size()) {
+            throw new IndexOutOfBoundsException("startIndex " + startIndex + " out of range for " + items.size() + " items");
+        }
+        timings.onLoadStarted(SystemClock.elapsedRealtime());
+        awaitingFirstSegment = true;
+        startQoeSession();
+        playlist.clear();
+        playlist.addAll(items);
+        currentSource = items.get(startIndex);
+        updateState(PlayerState.LOADING);
+
+        List<MediaSource> mediaSources = new ArrayList<>(items.size());
+        for (MediaSourceInfo item : items) {
+            mediaSources.add(createMediaSource(Uri.parse(item.url), item));
+        }
+        exoPlayer.setMediaSources(mediaSources, startIndex, startPositionMs);
+        exoPlayer.prepare();
+
+        if (configuration.autoPlay) {
+            play();
+        }
+        preloadNextItem(startIndex);
+    }
+
+    /** Skip to the next playlist item. Returns false if there is none. */
+    public boolean next() {
+        if (exoPlayer == null || !exoPlayer.hasNextMediaItem()) return false;
+        timings.onItemSwitchStarted(SystemClock.elapsedRealtime());
+        exoPlayer.seekToNextMediaItem();
+        return true;
+    }
+
+    /** Go back to the previous playlist item. Returns false if there is none. */
+    public boolean previous() {
+        if (exoPlayer == null || !exoPlayer.hasPreviousMediaItem()) return false;
+        timings.onItemSwitchStarted(SystemClock.elapsedRealtime());
+        exoPlayer.seekToPreviousMediaItem();
+        return true;
+    }
+
+    /** Jump to a playlist item and position. */
+    public void seekToItem(int index, long positionMs) {
+        if (index < 0 || index >= playlist.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of range for " + playlist.size() + " items");
+        }
+        if (exoPlayer == null) return;
+        if (index != exoPlayer.getCurrentMediaItemIndex()) {
+            timings.onItemSwitchStarted(SystemClock.elapsedRealtime());
+        }
+        exoPlayer.seekTo(index, positionMs);
+    }
+
+    /** Index of the playing playlist item, or -1 when no playlist is set. */
+    public int getCurrentItemIndex() {
+        return playlist.isEmpty() || exoPlayer == null ? -1 : exoPlayer.getCurrentMediaItemIndex();
+    }
+
+    public int getPlaylistSize() {
+        return playlist.size();
+    }
+
+    /** Warm the cache (and DRM license) for the item after {@code index}, so autoplay-next does not rebuffer. */
+    private void preloadNextItem(int index) {
+        int nextIndex = exoPlayer.getRepeatMode() == Player.REPEAT_MODE_ALL
+            ? (index + 1) % playlist.size()
+            : index + 1;
+        if (nextIndex >= playlist.size() || nextIndex == index) return;
+        MediaSourceInfo next = playlist.get(nextIndex);
+        if (configuration.cacheEnabled) {
+            preload(next);
+        }
+        if (next.drm != null) {
+            prefetchDrmKeys(next);
+        }
+    }
+
+    /**
+     * Warm the shared cache for a source ahead of {@link #load(MediaSourceInfo)}, honouring
+     * {@link PlayerConfiguration#preload}. Needs the cache enabled; may be called before initialize().
+     */
+    public void preload(@NonNull MediaSourceInfo source) {
+        PlayerConfiguration config = configuration != null ? configuration : new PlayerConfiguration.Builder().build();
+        if (!config.cacheEnabled) {
+            Log.w(TAG, "Preload ignored: cache is disabled");
+            return;
+        }
+        String type = source.type != null ? source.type : MediaSourceInfo.detectType(source.url);
+        MediaPreloader.getInstance().preload(context, Uri.parse(source.url), type, config);
+    }
+
     /**
      * Create ExoPlayer MediaSource
      */
     private MediaSource createMediaSource(Uri uri, MediaSourceInfo source) {
-        DefaultDataSource.Factory dataSourceFactory = new DefaultDataSource.Factory(context);
+        MediaSourceFactoryRegistry factories = getMediaSourceFactories();
+
+        String type = source.type != null ? source.type : MediaSourceInfo.detectType(source.url);
 
         // Configure DRM if needed
         DrmSessionManagerProvider drmSessionManagerProvider = null;
-        if (source.drm != null) {
+        if (source.drm != null && source.drm.persistLicense) {
+            drmSessionManagerProvider = createOfflineDrmSessionManagerProvider(source.drm, uri, type, factories.getManifestDataSourceFactory());
+        }
+        if (source.drm != null && drmSessionManagerProvider == null) {
             drmSessionManagerProvider = createDrmSessionManagerProvider(source.drm);
         }
 
@@ -391,10 +762,10 @@ public class UnifiedVideoPlayer {
 
         // Attach side-loaded subtitles if provided
         if (source.subtitles != null && !source.subtitles.isEmpty()) {
-            List<MediaItem.SubtitleConfiguration> subs = new ArrayList<>();
+            List<MediaItem.SubtitleConfiguration> subs = new ArrayList<>(source.subtitles.size());
             for (SubtitleTrack st : source.subtitles) {
                 MediaItem.SubtitleConfiguration subCfg = new MediaItem.SubtitleConfiguration.Builder(Uri.parse(st.url))
-                        .setMimeType(st.mimeType != null ? st.mimeType : MimeTypes.TEXT_VTT)
+                        .setMimeType(st.resolvedMimeType())
                         .setLanguage(st.language)
                         .setLabel(st.label)
                         .build();
@@ -406,46 +777,80 @@ public class UnifiedVideoPlayer {
         MediaItem mediaItem = mediaItemBuilder.build();
 
         // Create appropriate media source based on type
-        String type = source.type != null ? source.type : MediaSourceInfo.detectType(source.url);
+        MediaSource mediaSource = factories.createMediaSource(type, mediaItem, drmSessionManagerProvider);
+        return withSideloadedSubtitles(mediaSource, mediaItem, factories.getMediaDataSourceFactory());
+    }
+
+    /** Factories and data source stacks for this player's configuration, built on first use. */
+    private MediaSourceFactoryRegistry getMediaSourceFactories() {
+        if (mediaSourceFactories == null) {
+            DataSource.Factory upstreamFactory = HttpStack.buildDataSourceFactory(context, configuration);
+            DataSource.Factory manifestDataSourceFactory;
+            ManifestCache manifestCache = null;
+            if (configuration.manifestCacheEnabled) {
+                // Directly over the network: manifests preloaded into the disk cache would be
+                // replayed from there once their TTL expires, skipping revalidation
+                manifestCache = ManifestCache.getInstance(context);
+                Map<String, Long> ttls = configuration.manifestCacheTtlMs;
+                manifestDataSourceFactory = new ManifestCacheDataSource.Factory(manifestCache, upstreamFactory,
+                    type -> ttls.containsKey(type) ? ttls.get(type) : 0);
+            } else {
+                manifestDataSourceFactory = buildManifestDataSourceFactory(upstreamFactory);
+            }
+            mediaSourceFactories = new MediaSourceFactoryRegistry(
+                manifestDataSourceFactory, buildMediaDataSourceFactory(upstreamFactory), manifestCache);
+        }
+        return mediaSourceFactories;
+    }
 
-        switch (type) {
-            case "hls":
-                HlsMediaSource.Factory hlsFactory = new HlsMediaSource.Factory(dataSourceFactory);
-                if (drmSessionManagerProvider != null) {
-                    hlsFactory.setDrmSessionManagerProvider(drmSessionManagerProvider);
-                }
-                return hlsFactory.createMediaSource(mediaItem);
-
-            case "dash":
-                DashMediaSource.Factory dashFactory = new DashMediaSource.Factory(dataSourceFactory);
-                if (drmSessionManagerProvider != null) {
-                    dashFactory.setDrmSessionManagerProvider(drmSessionManagerProvider);
-                }
-                return dashFactory.createMediaSource(mediaItem);
-
-            case "smoothstreaming":
-                SsMediaSource.Factory ssFactory = new SsMediaSource.Factory(dataSourceFactory);
-                if (drmSessionManagerProvider != null) {
-                    ssFactory.setDrmSessionManagerProvider(drmSessionManagerProvider);
-                }
-                return ssFactory.createMediaSource(mediaItem);
-
-            default:
-                ProgressiveMediaSource.Factory progressiveFactory = new ProgressiveMediaSource.Factory(dataSourceFactory);
-                if (drmSessionManagerProvider != null) {
-                    progressiveFactory.setDrmSessionManagerProvider(drmSessionManagerProvider);
-                }
-                return progressiveFactory.createMediaSource(mediaItem);
+    /**
+     * Merge side-loaded subtitle tracks into the media source. The per-type factories ignore
+     * MediaItem subtitle configurations, so they are loaded here with the shared data source.
+     */
+    private MediaSource withSideloadedSubtitles(MediaSource mediaSource, MediaItem mediaItem, DataSource.Factory dataSourceFactory) {
+        List<MediaItem.SubtitleConfiguration> subtitles = mediaItem.localConfiguration != null
+            ? mediaItem.localConfiguration.subtitleConfigurations
+            : null;
+        if (subtitles == null || subtitles.isEmpty()) return mediaSource;
+
+        SingleSampleMediaSource.Factory subtitleFactory = new SingleSampleMediaSource.Factory(dataSourceFactory);
+        MediaSource[] sources = new MediaSource[subtitles.size() + 1];
+        sources[0] = mediaSource;
+        for (int i = 0; i < subtitles.size(); i++) {
+            sources[i + 1] = subtitleFactory.createMediaSource(subtitles.get(i), C.TIME_UNSET);
         }
+        return new MergingMediaSource(sources);
+    }
+
+    /**
+     * Data source for media segments, routed through the shared disk cache when enabled
+     */
+    private DataSource.Factory buildMediaDataSourceFactory(DataSource.Factory upstream) {
+        if (!configuration.cacheEnabled) return upstream;
+        return MediaCache.buildDataSourceFactory(context, configuration.maxCacheBytes, upstream, configuration.cacheIgnoreQuery);
+    }
+
+    /**
+     * Data source for manifests. The cache is only read, never written, so live playlists
+     * never go stale; VOD manifests get there through {@link #preload(MediaSourceInfo)}.
+     */
+    private DataSource.Factory buildManifestDataSourceFactory(DataSource.Factory upstream) {
+        if (!configuration.cacheEnabled) return upstream;
+        return MediaCache.buildReadOnlyDataSourceFactory(context, configuration.maxCacheBytes, upstream, configuration.cacheIgnoreQuery);
     }
 
     /**
      * Create DRM Session Manager Provider
      */
     private DrmSessionManagerProvider createDrmSessionManagerProvider(DRMConfiguration drm) {
+        if (usesDrmSessionCache(drm)) {
+            DrmSessionManager cached = acquireCachedDrmSessionManager(drm);
+            return mediaItem -> cached;
+        }
+
         HttpMediaDrmCallback drmCallback = new HttpMediaDrmCallback(
             drm.licenseUrl,
-            new DefaultHttpDataSource.Factory()
+            HttpStack.buildHttpDataSourceFactory(configuration)
         );
 
         if (drm.headers != null) {
@@ -457,33 +862,97 @@ public class UnifiedVideoPlayer {
         return new DrmSessionManagerProvider() {
             @Override
             public DrmSessionManager get(MediaItem mediaItem) {
-                DefaultDrmSessionManager drmSessionManager = new DefaultDrmSessionManager.Builder()
+                return new DefaultDrmSessionManager.Builder()
                     .setUuidAndExoMediaDrmProvider(
                         getDrmUuid(drm.type),
                         FrameworkMediaDrm.DEFAULT_PROVIDER
                     )
+                    .setMultiSession(drm.multiSession)
                     .build(drmCallback);
+            }
+        };
+    }
 
-                drmSessionManager.setMode(DefaultDrmSessionManager.MODE_PLAYBACK, new byte[0]);
-                return drmSessionManager;
+    /**
+     * Playback from a stored offline license, or null when none is stored yet. In that case
+     * the license is downloaded in the background for the next load and this load plays online.
+     */
+    @Nullable
+    private DrmSessionManagerProvider createOfflineDrmSessionManagerProvider(DRMConfiguration drm, Uri uri, String type,
+                                                                            DataSource.Factory manifestDataSourceFactory) {
+        OfflineLicenseStore store = OfflineLicenseStore.getInstance(context);
+        String contentKey = offlineContentKey(drm, uri);
+        HttpDataSource.Factory httpFactory = HttpStack.buildHttpDataSourceFactory(configuration);
+        OfflineLicenseStore.LicenseRequest request = new OfflineLicenseStore.LicenseRequest(
+            getDrmUuid(drm.type), drm.licenseUrl, drm.headers, httpFactory);
+
+        byte[] keySetId = store.getKeySetId(contentKey);
+        if (keySetId == null) {
+            store.acquire(contentKey, request, manifestDataSourceFactory, uri, type);
+            return null;
+        }
+        store.scheduleRenewal(contentKey, request);
+        offlineLicenseKeys.put(uri, contentKey);
+
+        HttpMediaDrmCallback drmCallback = new HttpMediaDrmCallback(drm.licenseUrl, httpFactory);
+        if (drm.headers != null) {
+            for (Map.Entry<String, String> entry : drm.headers.entrySet()) {
+                drmCallback.setKeyRequestProperty(entry.getKey(), entry.getValue());
             }
+        }
+        return mediaItem -> {
+            DefaultDrmSessionManager drmSessionManager = new DefaultDrmSessionManager.Builder()
+                .setUuidAndExoMediaDrmProvider(request.scheme, FrameworkMediaDrm.DEFAULT_PROVIDER)
+                .build(drmCallback);
+            drmSessionManager.setMode(DefaultDrmSessionManager.MODE_PLAYBACK, keySetId);
+            return drmSessionManager;
         };
     }
 
+    /** Offline licenses are per title: the key ID when known, otherwise the token-free manifest URL. */
+    private static String offlineContentKey(DRMConfiguration drm, Uri uri) {
+        String content = drm.keyId != null ? drm.keyId : MediaCache.buildCacheKey(uri, false);
+        return drm.type + "|" + drm.licenseUrl + "|" + content;
+    }
+
+    private DrmSessionManager acquireCachedDrmSessionManager(DRMConfiguration drm) {
+        return DrmSessionCache.getInstance().get(drmCacheKey(drm), drm.headers,
+                HttpStack.buildHttpDataSourceFactory(configuration), configuration.drmSessionKeepAliveMs);
+    }
+
+    /**
+     * Cached managers are shared by every source with the same key, and a single-session
+     * manager hands its open session to the next one. Without a key ID, titles behind the
+     * same license URL would share a session holding only the first title's keys.
+     */
+    private boolean usesDrmSessionCache(DRMConfiguration drm) {
+        return configuration.drmSessionKeepAliveMs > 0 && drm.keyId != null;
+    }
+
+    private DrmSessionCache.Key drmCacheKey(DRMConfiguration drm) {
+        return new DrmSessionCache.Key(getDrmUuid(drm.type), drm.licenseUrl, drm.keyId, drm.multiSession,
+                exoPlayer.getPlaybackLooper());
+    }
+
+    /**
+     * Acquire the license for a DRM source ahead of {@link #load(MediaSourceInfo)}, so playback
+     * starts without waiting on the license server. Needs initialize(), DRM session reuse
+     * (a non-zero {@link PlayerConfiguration#drmSessionKeepAliveMs}) and a key ID on the source's DRM configuration.
+     */
+    public void prefetchDrmKeys(@NonNull MediaSourceInfo source) {
+        if (exoPlayer == null || source.drm == null || !usesDrmSessionCache(source.drm)) return;
+        acquireCachedDrmSessionManager(source.drm);
+        String type = source.type != null ? source.type : MediaSourceInfo.detectType(source.url);
+        DrmSessionCache.getInstance().prefetch(drmCacheKey(source.drm),
+                getMediaSourceFactories().getManifestDataSourceFactory(),
+                Uri.parse(source.url), type);
+    }
+
     /**
      * Get DRM UUID from type
      */
     private UUID getDrmUuid(String drmType) {
-        switch (drmType.toLowerCase()) {
-            case "widevine":
-                return C.WIDEVINE_UUID;
-            case "playready":
-                return C.PLAYREADY_UUID;
-            case "clearkey":
-                return C.CLEARKEY_UUID;
-            default:
-                return C.WIDEVINE_UUID;
-        }
+        return DrmSchemes.uuidFor(drmType);
     }
 
     /**
@@ -505,7 +974,7 @@ public class UnifiedVideoPlayer {
         if (configuration != null && configuration.allowBackgroundPlayback) {
             try { PlaybackService.start(context); } catch (Exception ignored) {}
         }
-        if (eventListener != null) eventListener.onPlay();
+        listeners.onPlay();
     }
 
     public void pause() {
@@ -515,7 +984,7 @@ public class UnifiedVideoPlayer {
         if (configuration != null && configuration.allowBackgroundPlayback) {
             try { PlaybackService.start(context); } catch (Exception ignored) {}
         }
-        if (eventListener != null) eventListener.onPause();
+        listeners.onPause();
     }
 
     public void stop() {
@@ -534,9 +1003,10 @@ public class UnifiedVideoPlayer {
     }
 
     public void seekTo(long position) {
+        timings.onSeekStarted(SystemClock.elapsedRealtime());
         updateState(PlayerState.SEEKING);
         exoPlayer.seekTo(position);
-        if (eventListener != null) eventListener.onSeek(position);
+        listeners.onSeek(position);
     }
 
     public void seekForward(int seconds) {
@@ -555,7 +1025,7 @@ public class UnifiedVideoPlayer {
         float clampedVolume = Math.max(0f, Math.min(1f, volume));
         this.volume = clampedVolume;
         exoPlayer.setVolume(clampedVolume);
-        if (eventListener != null) eventListener.onVolumeChange(clampedVolume);
+        listeners.onVolumeChange(clampedVolume);
     }
 
     public void mute() {
@@ -588,10 +1058,12 @@ public class UnifiedVideoPlayer {
 
     public void setVideoQuality(String quality) {
         DefaultTrackSelector.Parameters.Builder parametersBuilder = trackSelector.buildUponParameters();
+        autoVideoQuality = "auto".equals(quality);
+        if (!autoVideoQuality) parametersBuilder.clearViewportSizeConstraints();
 
         switch (quality) {
             case "auto":
-                trackSelector.setParameters(parametersBuilder.clearVideoSizeConstraints().build());
+                trackSelector.setParameters(applyAbrConstraints(parametersBuilder).build());
                 break;
             case "hd":
                 trackSelector.setParameters(
@@ -616,8 +1088,12 @@ public class UnifiedVideoPlayer {
 
     private void updateState(PlayerState newState) {
         state = newState;
-        if (eventListener != null) eventListener.onStateChange(newState);
-        trackAnalytics("statechange", new HashMap<String, Object>() {{ put("state", newState.name()); }});
+        listeners.onStateChange(newState);
+        AnalyticsEvent event = obtainAnalyticsEvent(AnalyticsEvent.STATE_CHANGE);
+        if (event != null) {
+            event.state = newState.name();
+            dispatchAnalytics(event);
+        }
 
         if (configuration.debug) {
             Log.d(TAG, "State changed to: " + newState);
@@ -627,46 +1103,100 @@ public class UnifiedVideoPlayer {
     // Progress Updates
 
     private void startProgressUpdates() {
-        updateProgressHandler = new Runnable() {
-            @Override
-            public void run() {
-                if (exoPlayer != null) {
-                    currentPosition = exoPlayer.getCurrentPosition();
-                    bufferedPosition = exoPlayer.getBufferedPosition();
-                    duration = exoPlayer.getDuration();
-
-                    if (eventListener != null) {
-                        eventListener.onTimeUpdate(currentPosition);
-                        eventListener.onProgress(bufferedPosition);
-                    }
-                }
-                mainHandler.postDelayed(this, 100);
-            }
-        };
-        mainHandler.post(updateProgressHandler);
+        progressScheduler = new ProgressScheduler(mainHandler, configuration.progressUpdateIntervalMs, this::onProgressTick);
+        progressScheduler.setPlaybackSpeed(exoPlayer.getPlaybackParameters().speed);
+        progressScheduler.setAttached(playerView.isAttachedToWindow());
+        progressScheduler.setPlaying(exoPlayer.isPlaying());
+        playerView.addOnAttachStateChangeListener(attachStateListener);
     }
 
+    private void onProgressTick() {
+        if (exoPlayer == null) return;
+        currentPosition = exoPlayer.getCurrentPosition();
+        bufferedPosition = exoPlayer.getBufferedPosition();
+        duration = exoPlayer.getDuration();
+
+        listeners.onProgressUpdate(currentPosition, bufferedPosition, duration);
+    }
+
+    private final View.OnAttachStateChangeListener attachStateListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            if (progressScheduler != null) progressScheduler.setAttached(true);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            if (progressScheduler != null) progressScheduler.setAttached(false);
+        }
+    };
+
     private void stopProgressUpdates() {
-        if (updateProgressHandler != null) {
-            mainHandler.removeCallbacks(updateProgressHandler);
+        if (progressScheduler != null) {
+            progressScheduler.release();
+            progressScheduler = null;
+        }
+        if (playerView != null) {
+            playerView.removeOnAttachStateChangeListener(attachStateListener);
+            playerView.removeOnLayoutChangeListener(viewportListener);
         }
-        if (watermarkRandomizer != null) {
-            mainHandler.removeCallbacks(watermarkRandomizer);
+        if (watermarkOverlay != null) {
+            watermarkOverlay.stopMoving();
         }
     }
 
-    private void scheduleWatermark() {
-        if (watermarkOverlay == null) return;
-        watermarkRandomizer = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    watermarkOverlay.randomize();
-                } catch (Exception ignored) {}
-                mainHandler.postDelayed(this, 5000);
+    /**
+     * Latest initialize(), load-to-READY, seek-to-READY and item switch timings.
+     * {@link PlaybackTimings#toJson()} gives a machine-readable snapshot.
+     */
+    public PlaybackTimings getPlaybackTimings() {
+        return timings;
+    }
+
+    /**
+     * Process-wide p50/p90/p99/max histograms of load-to-first-frame, seek-to-READY,
+     * DRM key load, manifest load and first segment load, shared by all players.
+     */
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
+    }
+
+    private void onTimingReady() {
+        if (timings.onReady(SystemClock.elapsedRealtime())) logTimings();
+    }
+
+    private void logTimings() {
+        if (configuration.debug) Log.d(TAG, "Timings: " + timings.toJson());
+    }
+
+    /**
+     * QoE metrics of the current session so far: startup time, rebuffers, bitrate and
+     * dropped frames. Final snapshots go to {@link AnalyticsProvider#onQoeSnapshot}.
+     */
+    public QoeSnapshot getQoeSnapshot() {
+        return qoeCollector.snapshot();
+    }
+
+    private void startQoeSession() {
+        finishQoeSession();
+        qoeCollector.startSession();
+    }
+
+    private void finishQoeSession() {
+        QoeSnapshot snapshot = qoeCollector.endSession();
+        if (snapshot == null) return;
+        if (configuration != null && configuration.debug) Log.d(TAG, "QoE: " + snapshot);
+        if (analyticsDispatcher != null) {
+            AnalyticsEvent event = obtainAnalyticsEvent(QoeSnapshot.EVENT_NAME);
+            if (event != null) {
+                event.qoe = snapshot;
+                analyticsDispatcher.dispatch(event);
             }
-        };
-        mainHandler.postDelayed(watermarkRandomizer, 5000);
+            return;
+        }
+        for (int i = 0, n = analyticsProviders.size(); i < n; i++) {
+            try { analyticsProviders.get(i).onQoeSnapshot(snapshot); } catch (Exception ignored) {}
+        }
     }
 
     // Player Event Listener
@@ -680,18 +1210,17 @@ public class UnifiedVideoPlayer {
                     break;
                 case Player.STATE_BUFFERING:
                     updateState(PlayerState.BUFFERING);
-                    if (eventListener != null) eventListener.onBuffering(true);
+                    listeners.onBuffering(true);
                     break;
                 case Player.STATE_READY:
+                    onTimingReady();
                     if (state == PlayerState.LOADING || state == PlayerState.BUFFERING) {
                         updateState(PlayerState.READY);
-                        if (eventListener != null) {
-                            eventListener.onReady();
-                            emitLoadedMetadata();
-                        }
+                        listeners.onReady();
+                        emitLoadedMetadata();
                     }
-                    if (state == PlayerState.BUFFERING && eventListener != null) {
-                        eventListener.onBuffering(false);
+                    if (state == PlayerState.BUFFERING) {
+                        listeners.onBuffering(false);
                     }
                     if (exoPlayer.isPlaying()) {
                         updateState(PlayerState.PLAYING);
@@ -699,7 +1228,8 @@ public class UnifiedVideoPlayer {
                     break;
                 case Player.STATE_ENDED:
                     updateState(PlayerState.ENDED);
-                    if (eventListener != null) eventListener.onEnded();
+                    listeners.onEnded();
+                    if (!playlist.isEmpty()) listeners.onPlaylistEnded();
 
                     if (configuration.loop) {
                         seekTo(0);
@@ -712,20 +1242,57 @@ public class UnifiedVideoPlayer {
         @Override
         public void onIsPlayingChanged(boolean isPlaying) {
             UnifiedVideoPlayer.this.isPlaying = isPlaying;
+            if (progressScheduler != null) {
+                progressScheduler.setPlaying(isPlaying);
+                // Report where playback stopped
+                if (!isPlaying) progressScheduler.tickNow();
+            }
             if (isPlaying) {
                 updateState(PlayerState.PLAYING);
-                trackAnalytics("play", null);
+                trackAnalytics(AnalyticsEvent.PLAY);
             } else if (state == PlayerState.PLAYING) {
                 updateState(PlayerState.PAUSED);
-                trackAnalytics("pause", null);
+                trackAnalytics(AnalyticsEvent.PAUSE);
+            }
+        }
+
+        @Override
+        public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+            if (playlist.isEmpty() || reason == Player.MEDIA_ITEM_TRANSITION_REASON_PLAYLIST_CHANGED) return;
+            int index = exoPlayer.getCurrentMediaItemIndex();
+            if (index >= playlist.size()) return;
+            currentSource = playlist.get(index);
+            subtitleIndex = -1;
+            boolean autoAdvance = reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO
+                || reason == Player.MEDIA_ITEM_TRANSITION_REASON_REPEAT;
+            listeners.onPlaylistItemChanged(index, currentSource.url, autoAdvance);
+            preloadNextItem(index);
+        }
+
+        @Override
+        public void onPositionDiscontinuity(Player.PositionInfo oldPosition, Player.PositionInfo newPosition, int reason) {
+            // Seeks inside the buffer stay READY without a state change
+            if (reason == Player.DISCONTINUITY_REASON_SEEK && exoPlayer.getPlaybackState() == Player.STATE_READY) {
+                onTimingReady();
             }
+            // Keep position listeners current when seeking while paused
+            if (progressScheduler != null) progressScheduler.tickNow();
+        }
+
+        @Override
+        public void onPlaybackParametersChanged(PlaybackParameters playbackParameters) {
+            if (progressScheduler != null) progressScheduler.setPlaybackSpeed(playbackParameters.speed);
         }
 
         @Override
         public void onPlayerError(PlaybackException error) {
             updateState(PlayerState.ERROR);
-            if (eventListener != null) eventListener.onError(error);
-            trackAnalytics("error", new HashMap<String, Object>() {{ put("message", error.getMessage()); }});
+            listeners.onError(error);
+            AnalyticsEvent event = obtainAnalyticsEvent(AnalyticsEvent.ERROR);
+            if (event != null) {
+                event.message = error.getMessage();
+                dispatchAnalytics(event);
+            }
 
             if (configuration.debug) {
                 Log.e(TAG, "Player error: " + error.getMessage(), error);
@@ -734,14 +1301,13 @@ public class UnifiedVideoPlayer {
 
         @Override
         public void onVideoSizeChanged(VideoSize videoSize) {
-            if (eventListener != null) {
-                eventListener.onVideoSizeChanged(videoSize.width, videoSize.height);
-            }
+            listeners.onVideoSizeChanged(videoSize.width, videoSize.height);
         }
 
         @Override
         public void onRenderedFirstFrame() {
             Log.d(TAG, "First frame rendered");
+            if (timings.onFirstFrame(SystemClock.elapsedRealtime())) logTimings();
         }
     };
 
@@ -751,6 +1317,34 @@ public class UnifiedVideoPlayer {
         @Override
         public void onLoadCompleted(AnalyticsListener.EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
             Log.d(TAG, "Load completed: " + loadEventInfo.dataSpec.uri);
+            if (mediaLoadData.dataType == C.DATA_TYPE_MANIFEST) {
+                latencyMetrics.manifestLoad.record(loadEventInfo.loadDurationMs);
+            } else if (mediaLoadData.dataType == C.DATA_TYPE_MEDIA && awaitingFirstSegment) {
+                awaitingFirstSegment = false;
+                latencyMetrics.firstSegmentLoad.record(loadEventInfo.loadDurationMs);
+            }
+        }
+
+        @Override
+        public void onDrmSessionAcquired(AnalyticsListener.EventTime eventTime, int state) {
+            // A reused session that already has keys reports no key load
+            drmKeyRequestMs = state == DrmSession.STATE_OPENED_WITH_KEYS ? C.TIME_UNSET : eventTime.realtimeMs;
+        }
+
+        @Override
+        public void onDrmKeysLoaded(AnalyticsListener.EventTime eventTime) {
+            if (drmKeyRequestMs == C.TIME_UNSET) return;
+            latencyMetrics.drmKeyLoad.record(eventTime.realtimeMs - drmKeyRequestMs);
+            drmKeyRequestMs = C.TIME_UNSET;
+        }
+
+        @Override
+        public void onDrmSessionManagerError(AnalyticsListener.EventTime eventTime, Exception error) {
+            MediaItem item = exoPlayer != null ? exoPlayer.getCurrentMediaItem() : null;
+            if (item == null || item.localConfiguration == null) return;
+            // Stored licenses without a known expiry are only found to be stale here
+            String contentKey = offlineLicenseKeys.remove(item.localConfiguration.uri);
+            if (contentKey != null) OfflineLicenseStore.getInstance(context).invalidate(contentKey);
         }
 
         @Override
@@ -758,6 +1352,9 @@ public class UnifiedVideoPlayer {
             if (configuration.debug) {
                 Log.d(TAG, "Bandwidth estimate: " + bitrateEstimate + " bps");
             }
+            if (configuration.abrConfiguration.useLastBandwidthEstimate) {
+                BandwidthStore.getInstance(context).addSample(bitrateEstimate);
+            }
         }
     };
 
@@ -782,10 +1379,12 @@ public class UnifiedVideoPlayer {
             }
         }
 
-        if (eventListener != null) {
-            eventListener.onLoadedMetadata(metadata);
+        listeners.onLoadedMetadata(metadata);
+        AnalyticsEvent event = obtainAnalyticsEvent(AnalyticsEvent.LOADED_METADATA);
+        if (event != null) {
+            event.data = metadata;
+            dispatchAnalytics(event);
         }
-        trackAnalytics("loadedmetadata", metadata);
     }
 
     // Surface Control (for advanced use cases)
@@ -808,6 +1407,8 @@ public class UnifiedVideoPlayer {
     // Lifecycle Management
 
     public void onResume() {
+        if (progressScheduler != null) progressScheduler.setForeground(true);
+        if (watermarkOverlay != null) watermarkOverlay.setPaused(false);
         if (exoPlayer != null && state == PlayerState.PLAYING) {
             exoPlayer.play();
         }
@@ -855,6 +1456,8 @@ public class UnifiedVideoPlayer {
     }
 
     public void onStop() {
+        if (progressScheduler != null) progressScheduler.setForeground(false);
+        if (watermarkOverlay != null) watermarkOverlay.setPaused(true);
         if (!configuration.allowBackgroundPlayback && exoPlayer != null) {
             exoPlayer.stop();
         }
@@ -864,23 +1467,51 @@ public class UnifiedVideoPlayer {
 
     public void release() {
         stopProgressUpdates();
+        if (configuration != null && configuration.abrConfiguration.useLastBandwidthEstimate) {
+            BandwidthStore.getInstance(context).flush();
+        }
         try { PlaybackService.stop(context); } catch (Exception ignored) {}
 
+        if (playerView instanceof StyledPlayerView) {
+            ((StyledPlayerView) playerView).setPlayer(null);
+        } else if (playerView instanceof PlayerView) {
+            ((PlayerView) playerView).setPlayer(null);
+        }
+
+        finishQoeSession();
         if (exoPlayer != null) {
             exoPlayer.removeListener(playerEventListener);
             exoPlayer.removeAnalyticsListener(analyticsListener);
-            exoPlayer.release();
+            exoPlayer.removeAnalyticsListener(qoeCollector);
+            if (PlayerHolder.getPlayer() == exoPlayer) PlayerHolder.setPlayer(null);
+            if (pooledPlayer != null) {
+                PlayerPool.getInstance(context).recycle(pooledPlayer);
+            } else {
+                DrmSessionCache.getInstance().evict(exoPlayer.getPlaybackLooper());
+                exoPlayer.release();
+            }
         }
 
-        if (playerView != null && container != null) {
-            container.removeView(playerView);
+        if (container != null) {
+            if (playerView != null) container.removeView(playerView);
+            if (watermarkOverlay != null) container.removeView(watermarkOverlay);
+            if (castButton != null) container.removeView(castButton);
+            if (stopCastBtn != null) container.removeView(stopCastBtn);
+            if (subtitleBtn != null) container.removeView(subtitleBtn);
         }
 
         exoPlayer = null;
+        mediaSourceFactories = null;
+        pooledPlayer = null;
         playerView = null;
         container = null;
 
         updateState(PlayerState.IDLE);
+
+        if (analyticsDispatcher != null) {
+            analyticsDispatcher.shutdown();
+            analyticsDispatcher = null;
+        }
     }
 
     // Getters
@@ -927,23 +1558,41 @@ public class UnifiedVideoPlayer {
         if (provider != null) analyticsProviders.add(provider);
     }
 
+    /** Background analytics dispatcher, or null when asyncAnalytics is off. Exposes drop/delivery counters. */
+    @Nullable
+    public AnalyticsDispatcher getAnalyticsDispatcher() {
+        return analyticsDispatcher;
+    }
+
     public void setAnalyticsProviders(List<AnalyticsProvider> providers) {
         analyticsProviders.clear();
         if (providers != null) analyticsProviders.addAll(providers);
     }
 
-    private void trackAnalytics(String event, Map<String, Object> data) {
-        if (analyticsProviders.isEmpty()) return;
-        Map<String, Object> payload = new HashMap<>();
-        if (data != null) payload.putAll(data);
-        payload.put("timestamp", System.currentTimeMillis());
-        payload.put("position", currentPosition);
-        payload.put("duration", duration);
-        for (AnalyticsProvider p : analyticsProviders) {
+    private void trackAnalytics(String name) {
+        AnalyticsEvent event = obtainAnalyticsEvent(name);
+        if (event != null) dispatchAnalytics(event);
+    }
+
+    /** Pooled event stamped with the current time and position, or null when nobody listens. */
+    @Nullable
+    private AnalyticsEvent obtainAnalyticsEvent(String name) {
+        if (analyticsProviders.isEmpty()) return null;
+        return AnalyticsEvent.obtain(name, System.currentTimeMillis(), currentPosition, duration);
+    }
+
+    private void dispatchAnalytics(AnalyticsEvent event) {
+        if (analyticsDispatcher != null) {
+            analyticsDispatcher.dispatch(event);
+            return;
+        }
+        // Indexed loop: no iterator allocation per event
+        for (int i = 0, n = analyticsProviders.size(); i < n; i++) {
             try {
-                p.track(event, payload);
+                analyticsProviders.get(i).onEvent(event);
             } catch (Exception ignored) {}
         }
+        event.recycle();
     }
 
     // Casting API
@@ -981,20 +1630,18 @@ public class UnifiedVideoPlayer {
         String ct = inferContentType(currentSource);
         List<SubtitleItem> subs = null;
         if (currentSource.subtitles != null && !currentSource.subtitles.isEmpty()) {
-            subs = new ArrayList<>();
+            subs = new ArrayList<>(currentSource.subtitles.size());
             for (SubtitleTrack st : currentSource.subtitles) {
-                subs.add(new SubtitleItem(st.url, st.language, st.label, st.mimeType));
+                subs.add(new SubtitleItem(st.url, st.language, st.label, st.resolvedMimeType()));
             }
         }
         castManager.startCasting(currentSource.url, ct, currentSource.metadata != null ? String.valueOf(currentSource.metadata.get("title")) : null, subs, null);
     }
 
     private String inferContentType(MediaSourceInfo src) {
-        String u = src.url != null ? src.url.toLowerCase() : "";
-        if (u.endsWith(".m3u8")) return "application/x-mpegURL";
-        if (u.endsWith(".mpd")) return "application/dash+xml";
-        if (u.endsWith(".webm")) return "video/webm";
-        return "video/mp4";
+        ContentTypeResolver.ContentType type = ContentTypeResolver.resolve(src.url);
+        String fallback = type.isKnown() && !type.subtitle ? type.mimeType : "video/mp4";
+        return ContentTypeResolver.mimeTypeForSourceType(src.type, fallback);
     }
     // Subtitle selection helpers
     private int subtitleIndex = -1; // -1 off
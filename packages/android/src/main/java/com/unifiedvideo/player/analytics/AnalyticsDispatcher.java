@@ -0,0 +1,157 @@
+package com.unifiedvideo.player.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers analytics events to providers on a single background thread, so a slow provider
+ * never blocks the player. Events wait in a bounded ring buffer and are handed over in
+ * batches through {@link AnalyticsProvider#trackBatch(List)}; when the buffer is full the
+ * {@link OverflowPolicy} decides which event is lost.
+ */
+public final class AnalyticsDispatcher {
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final int MAX_BATCH_SIZE = 32;
+
+    public enum OverflowPolicy {
+        /** Discard the incoming event. */
+        DROP_NEWEST,
+        /** Discard the oldest queued event to make room. */
+        DROP_OLDEST,
+        /** Replace the newest queued event of the same name; falls back to DROP_OLDEST. */
+        COALESCE
+    }
+
+    private final List<AnalyticsProvider> providers;
+    private final OverflowPolicy policy;
+    private final AnalyticsEvent[] ring;
+    private final Object lock = new Object();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final Thread consumer;
+
+    // Guarded by lock
+    private int head;
+    private int count;
+    private boolean running = true;
+
+    /**
+     * @param providers live provider list read from the consumer thread; must be safe for
+     *                  concurrent iteration, e.g. a CopyOnWriteArrayList
+     */
+    public AnalyticsDispatcher(List<AnalyticsProvider> providers, int capacity, OverflowPolicy policy) {
+        this.providers = providers;
+        this.policy = policy != null ? policy : OverflowPolicy.DROP_OLDEST;
+        this.ring = new AnalyticsEvent[Math.max(1, capacity)];
+        this.consumer = new Thread(this::consume, "UVF-Analytics");
+        consumer.setDaemon(true);
+        consumer.setPriority(Thread.MIN_PRIORITY);
+        consumer.start();
+    }
+
+    /**
+     * Queue an event; ownership passes to the dispatcher, which recycles it after delivery.
+     * Events carrying a {@link AnalyticsEvent#qoe} snapshot go to
+     * {@link AnalyticsProvider#onQoeSnapshot(QoeSnapshot)} instead of the batch.
+     */
+    public void dispatch(AnalyticsEvent event) {
+        AnalyticsEvent discarded = null;
+        synchronized (lock) {
+            if (!running) {
+                discarded = event;
+            } else if (count < ring.length) {
+                ring[(head + count) % ring.length] = event;
+                count++;
+            } else if (policy == OverflowPolicy.DROP_NEWEST) {
+                discarded = event;
+            } else {
+                int slot = policy == OverflowPolicy.COALESCE ? findNewest(event.name) : -1;
+                if (slot >= 0) {
+                    discarded = ring[slot];
+                    ring[slot] = event;
+                } else {
+                    discarded = ring[head];
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    ring[(head + count - 1) % ring.length] = event;
+                }
+            }
+            lock.notify();
+        }
+        if (discarded != null) {
+            dropped.incrementAndGet();
+            discarded.recycle();
+        }
+    }
+
+    /** Deliver what is already queued, then stop the consumer thread. */
+    public void shutdown() {
+        synchronized (lock) {
+            running = false;
+            lock.notify();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    private int findNewest(String name) {
+        for (int i = count - 1; i >= 0; i--) {
+            int slot = (head + i) % ring.length;
+            if (ring[slot].name.equals(name)) return slot;
+        }
+        return -1;
+    }
+
+    private static void recycleAll(List<AnalyticsEvent> events) {
+        for (int i = 0, n = events.size(); i < n; i++) {
+            events.get(i).recycle();
+        }
+        events.clear();
+    }
+
+    private void consume() {
+        List<AnalyticsEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        List<AnalyticsEvent> snapshots = new ArrayList<>();
+        while (true) {
+            synchronized (lock) {
+                while (count == 0 && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (count == 0) return;
+                while (count > 0 && batch.size() + snapshots.size() < MAX_BATCH_SIZE) {
+                    AnalyticsEvent event = ring[head];
+                    (event.qoe != null ? snapshots : batch).add(event);
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    count--;
+                }
+            }
+            for (AnalyticsProvider provider : providers) {
+                if (!batch.isEmpty()) {
+                    try {
+                        provider.trackBatch(batch);
+                    } catch (Exception ignored) {}
+                }
+                for (int i = 0, n = snapshots.size(); i < n; i++) {
+                    try {
+                        provider.onQoeSnapshot(snapshots.get(i).qoe);
+                    } catch (Exception ignored) {}
+                }
+            }
+            delivered.addAndGet(batch.size() + snapshots.size());
+            recycleAll(batch);
+            recycleAll(snapshots);
+        }
+    }
+}
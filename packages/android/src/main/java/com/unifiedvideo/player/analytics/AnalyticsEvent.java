@@ -0,0 +1,121 @@
+package com.unifiedvideo.player.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed analytics event with primitive fields, delivered through
+ * {@link AnalyticsProvider#onEvent(AnalyticsEvent)}. Instances are pooled: a provider may
+ * only read an event while it is being delivered and must {@link #copy()} it to keep it.
+ */
+public final class AnalyticsEvent {
+    public static final String PLAY = "play";
+    public static final String PAUSE = "pause";
+    public static final String STATE_CHANGE = "statechange";
+    public static final String ERROR = "error";
+    public static final String LOADED_METADATA = "loadedmetadata";
+
+    private static final int MAX_POOL_SIZE = 32;
+    private static final Object POOL_LOCK = new Object();
+    private static AnalyticsEvent pool;
+    private static int poolSize;
+
+    public String name;
+    public long timestamp;
+    public long position;
+    public long duration;
+    /** Player state for statechange events, otherwise null. */
+    public String state;
+    /** Error message for error events, otherwise null. */
+    public String message;
+    /** Extra payload for infrequent events such as loadedmetadata, otherwise null. */
+    public Map<String, Object> data;
+    /**
+     * Session metrics for {@link QoeSnapshot#EVENT_NAME} events queued on an
+     * {@link AnalyticsDispatcher}, which delivers them through
+     * {@link AnalyticsProvider#onQoeSnapshot(QoeSnapshot)}; otherwise null.
+     */
+    public QoeSnapshot qoe;
+
+    private AnalyticsEvent next;
+    private boolean pooled;
+
+    private AnalyticsEvent() {}
+
+    /** Take an event from the pool, allocating only when the pool is empty. */
+    public static AnalyticsEvent obtain(String name, long timestamp, long position, long duration) {
+        AnalyticsEvent event;
+        synchronized (POOL_LOCK) {
+            event = pool;
+            if (event != null) {
+                pool = event.next;
+                event.next = null;
+                poolSize--;
+            }
+        }
+        if (event == null) event = new AnalyticsEvent();
+        event.pooled = true;
+        event.name = name;
+        event.timestamp = timestamp;
+        event.position = position;
+        event.duration = duration;
+        return event;
+    }
+
+    /** Return the event to the pool. Called by the player once every provider has seen it. */
+    public void recycle() {
+        if (!pooled) return;
+        pooled = false;
+        name = null;
+        state = null;
+        message = null;
+        data = null;
+        qoe = null;
+        synchronized (POOL_LOCK) {
+            if (poolSize < MAX_POOL_SIZE) {
+                next = pool;
+                pool = this;
+                poolSize++;
+            }
+        }
+    }
+
+    /** Detached copy that is never recycled, for providers that keep events. */
+    public AnalyticsEvent copy() {
+        AnalyticsEvent copy = new AnalyticsEvent();
+        copy.name = name;
+        copy.timestamp = timestamp;
+        copy.position = position;
+        copy.duration = duration;
+        copy.state = state;
+        copy.message = message;
+        copy.data = data != null ? new HashMap<>(data) : null;
+        copy.qoe = qoe;
+        return copy;
+    }
+
+    /** Legacy map payload, as passed to {@link AnalyticsProvider#track(String, Map)}. */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        if (qoe != null) map.putAll(qoe.toMap());
+        if (data != null) map.putAll(data);
+        if (state != null) map.put("state", state);
+        if (message != null) map.put("message", message);
+        map.put("timestamp", timestamp);
+        map.put("position", position);
+        map.put("duration", duration);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "AnalyticsEvent{" +
+                "name='" + name + '\'' +
+                ", timestamp=" + timestamp +
+                ", position=" + position +
+                ", duration=" + duration +
+                ", state=" + state +
+                ", message=" + message +
+                '}';
+    }
+}
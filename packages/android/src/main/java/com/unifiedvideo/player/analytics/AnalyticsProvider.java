@@ -1,9 +1,38 @@
 package com.unifiedvideo.player.analytics;
 
+import java.util.List;
 import java.util.Map;
 
 public interface AnalyticsProvider {
     String getName();
     void track(String event, Map<String, Object> data);
-}
 
+    /**
+     * Typed delivery without a per-event map. The default adapts the event to
+     * {@link #track(String, Map)}; providers that override this can leave track() empty.
+     * The event is recycled after this returns.
+     */
+    default void onEvent(AnalyticsEvent event) {
+        track(event.name, event.toMap());
+    }
+
+    /**
+     * Batched delivery used by {@link AnalyticsDispatcher} on its background thread.
+     * The default calls {@link #onEvent(AnalyticsEvent)} for each event; the list and
+     * its events are reused once this returns.
+     */
+    default void trackBatch(List<AnalyticsEvent> events) {
+        for (int i = 0, n = events.size(); i < n; i++) {
+            onEvent(events.get(i));
+        }
+    }
+
+    /**
+     * Session QoE metrics, delivered when a session ends (next load() or release()): on the
+     * main thread, or on the {@link AnalyticsDispatcher} thread when analytics are asynchronous.
+     * The default reports them through {@link #track(String, Map)}.
+     */
+    default void onQoeSnapshot(QoeSnapshot snapshot) {
+        track(QoeSnapshot.EVENT_NAME, snapshot.toMap());
+    }
+}
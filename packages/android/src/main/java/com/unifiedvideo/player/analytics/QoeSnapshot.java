@@ -0,0 +1,88 @@
+package com.unifiedvideo.player.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quality-of-experience metrics for one playback session, from load() until the next
+ * load() or release(). Immutable; durations in milliseconds, bitrates in bits per second.
+ */
+public final class QoeSnapshot {
+    public static final String EVENT_NAME = "qoe";
+    public static final long UNSET = -1;
+
+    /**
+     * load() until the first rendered frame (for audio-only content, until it first played),
+     * or {@link #UNSET} if playback has not started yet.
+     */
+    public final long videoStartTimeMs;
+    /** Stalls after playback started that were not caused by a seek. */
+    public final int rebufferCount;
+    public final long rebufferDurationMs;
+    /** Rebuffer time over rebuffer plus playing time, 0 to 1. */
+    public final double rebufferRatio;
+    public final long playTimeMs;
+    /** Playing-time weighted video bitrate, or {@link #UNSET} if unknown. */
+    public final long averageBitrate;
+    public final long peakBitrate;
+    public final int bitrateSwitchCount;
+    public final long droppedFrames;
+    /** Latest video decoder initialization time, or {@link #UNSET}. */
+    public final long decoderInitTimeMs;
+    /** The session ended before playback started. */
+    public final boolean exitedBeforeStart;
+    public final boolean ended;
+
+    public QoeSnapshot(long videoStartTimeMs, int rebufferCount, long rebufferDurationMs, long playTimeMs,
+                       long averageBitrate, long peakBitrate, int bitrateSwitchCount, long droppedFrames,
+                       long decoderInitTimeMs, boolean exitedBeforeStart, boolean ended) {
+        this.videoStartTimeMs = videoStartTimeMs;
+        this.rebufferCount = rebufferCount;
+        this.rebufferDurationMs = rebufferDurationMs;
+        this.playTimeMs = playTimeMs;
+        long watched = playTimeMs + rebufferDurationMs;
+        this.rebufferRatio = watched > 0 ? (double) rebufferDurationMs / watched : 0;
+        this.averageBitrate = averageBitrate;
+        this.peakBitrate = peakBitrate;
+        this.bitrateSwitchCount = bitrateSwitchCount;
+        this.droppedFrames = droppedFrames;
+        this.decoderInitTimeMs = decoderInitTimeMs;
+        this.exitedBeforeStart = exitedBeforeStart;
+        this.ended = ended;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("videoStartTimeMs", videoStartTimeMs);
+        map.put("rebufferCount", rebufferCount);
+        map.put("rebufferDurationMs", rebufferDurationMs);
+        map.put("rebufferRatio", rebufferRatio);
+        map.put("playTimeMs", playTimeMs);
+        map.put("averageBitrate", averageBitrate);
+        map.put("peakBitrate", peakBitrate);
+        map.put("bitrateSwitchCount", bitrateSwitchCount);
+        map.put("droppedFrames", droppedFrames);
+        map.put("decoderInitTimeMs", decoderInitTimeMs);
+        map.put("exitedBeforeStart", exitedBeforeStart);
+        map.put("ended", ended);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "QoeSnapshot{" +
+                "videoStartTimeMs=" + videoStartTimeMs +
+                ", rebufferCount=" + rebufferCount +
+                ", rebufferDurationMs=" + rebufferDurationMs +
+                ", rebufferRatio=" + rebufferRatio +
+                ", playTimeMs=" + playTimeMs +
+                ", averageBitrate=" + averageBitrate +
+                ", peakBitrate=" + peakBitrate +
+                ", bitrateSwitchCount=" + bitrateSwitchCount +
+                ", droppedFrames=" + droppedFrames +
+                ", decoderInitTimeMs=" + decoderInitTimeMs +
+                ", exitedBeforeStart=" + exitedBeforeStart +
+                ", ended=" + ended +
+                '}';
+    }
+}
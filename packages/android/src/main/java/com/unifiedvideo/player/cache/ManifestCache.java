@@ -0,0 +1,230 @@
+package com.unifiedvideo.player.cache;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMultivariantPlaylist;
+import com.google.android.exoplayer2.source.smoothstreaming.manifest.SsManifest;
+import com.google.android.exoplayer2.upstream.ParsingLoadable;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of downloaded and parsed VOD manifests (HLS playlists, DASH MPDs,
+ * SmoothStreaming manifests). Raw bytes and HTTP validators are kept in memory and on
+ * disk; the parsed object is kept in memory, so an unchanged manifest is neither
+ * downloaded inside its TTL nor parsed again after revalidation. Live manifests are never stored.
+ *
+ * <p>Requests go through {@link ManifestCacheDataSource} and parsing through {@link #wrap}.
+ */
+public final class ManifestCache {
+    private static final String TAG = "UVF-ManifestCache";
+    private static final String CACHE_DIR = "uvf-manifest-cache";
+    private static final int MAX_MEMORY_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_PENDING = 32;
+
+    /** A stored manifest. {@code manifest} is null until parsed in this process. */
+    static final class Entry {
+        final String key;
+        final String type;
+        final Uri resolvedUri;
+        final byte[] bytes;
+        @Nullable final String etag;
+        @Nullable final String lastModified;
+        volatile long validatedAtMs;
+        @Nullable volatile Object manifest;
+
+        Entry(String key, String type, Uri resolvedUri, byte[] bytes, @Nullable String etag,
+              @Nullable String lastModified, long validatedAtMs, @Nullable Object manifest) {
+            this.key = key;
+            this.type = type;
+            this.resolvedUri = resolvedUri;
+            this.bytes = bytes;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validatedAtMs = validatedAtMs;
+            this.manifest = manifest;
+        }
+    }
+
+    /** What the data source learned about a response, until the parser sees it. */
+    private static final class Pending {
+        final String key;
+        @Nullable final String etag;
+        @Nullable final String lastModified;
+
+        Pending(String key, @Nullable String etag, @Nullable String lastModified) {
+            this.key = key;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static ManifestCache instance;
+
+    private final File dir;
+    private final LruCache<String, Entry> memory = new LruCache<String, Entry>(MAX_MEMORY_BYTES) {
+        @Override
+        protected int sizeOf(String key, Entry entry) {
+            return entry.bytes.length;
+        }
+    };
+    // Keyed by the URI the parser will see, which differs from the request URI after redirects
+    private final Map<String, Pending> pending = new LinkedHashMap<String, Pending>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pending> eldest) {
+            return size() > MAX_PENDING;
+        }
+    };
+
+    private ManifestCache(Context context) {
+        this.dir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+    }
+
+    public static synchronized ManifestCache getInstance(Context context) {
+        if (instance == null) instance = new ManifestCache(context);
+        return instance;
+    }
+
+    /**
+     * Wrap a manifest parser so unchanged manifests return the previously parsed object and
+     * static results are stored. Manifests are buffered in full before parsing.
+     */
+    public <T> ParsingLoadable.Parser<T> wrap(ParsingLoadable.Parser<T> parser, String type) {
+        return (uri, inputStream) -> {
+            byte[] bytes = Util.toByteArray(inputStream);
+            Pending response = takePending(uri);
+            String key = response != null ? response.key : keyFor(uri);
+            Entry entry = get(key);
+            if (entry != null && entry.manifest != null && Arrays.equals(entry.bytes, bytes)) {
+                entry.validatedAtMs = SystemClock.elapsedRealtime();
+                @SuppressWarnings("unchecked")
+                T cached = (T) entry.manifest;
+                return cached;
+            }
+            T manifest = parser.parse(uri, new ByteArrayInputStream(bytes));
+            if (isStatic(manifest)) {
+                put(new Entry(key, type, uri, bytes,
+                        response != null ? response.etag : null,
+                        response != null ? response.lastModified : null,
+                        SystemClock.elapsedRealtime(), manifest));
+            } else if (entry != null) {
+                remove(key);
+            }
+            return manifest;
+        };
+    }
+
+    /** Drop every stored manifest, in memory and on disk. */
+    public synchronized void clear() {
+        memory.evictAll();
+        pending.clear();
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (!file.delete()) Log.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    static String keyFor(Uri uri) {
+        return MediaCache.buildCacheKey(uri, false);
+    }
+
+    @Nullable
+    synchronized Entry get(String key) {
+        Entry entry = memory.get(key);
+        if (entry == null) {
+            entry = readFromDisk(key);
+            if (entry != null) memory.put(key, entry);
+        }
+        return entry;
+    }
+
+    /** Called by the data source once a response (network or cached) is open. */
+    synchronized void onResponse(String key, Uri resolvedUri, @Nullable String etag, @Nullable String lastModified) {
+        pending.put(resolvedUri.toString(), new Pending(key, etag, lastModified));
+    }
+
+    @Nullable
+    private synchronized Pending takePending(Uri uri) {
+        return pending.remove(uri.toString());
+    }
+
+    private synchronized void put(Entry entry) {
+        memory.put(entry.key, entry);
+        writeToDisk(entry);
+    }
+
+    private synchronized void remove(String key) {
+        memory.remove(key);
+        File file = fileFor(key);
+        if (file.exists() && !file.delete()) Log.w(TAG, "Could not delete " + file);
+    }
+
+    private static boolean isStatic(Object manifest) {
+        if (manifest instanceof DashManifest) return !((DashManifest) manifest).dynamic;
+        if (manifest instanceof SsManifest) return !((SsManifest) manifest).isLive;
+        if (manifest instanceof HlsMediaPlaylist) return ((HlsMediaPlaylist) manifest).hasEndTag;
+        // Multivariant playlists don't change for live streams either
+        return manifest instanceof HlsMultivariantPlaylist;
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, Integer.toHexString(key.hashCode()));
+    }
+
+    private void writeToDisk(Entry entry) {
+        if (!dir.exists() && !dir.mkdirs()) return;
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(fileFor(entry.key)))) {
+            out.writeUTF(entry.key);
+            out.writeUTF(entry.type);
+            out.writeUTF(entry.resolvedUri.toString());
+            out.writeUTF(entry.etag != null ? entry.etag : "");
+            out.writeUTF(entry.lastModified != null ? entry.lastModified : "");
+            out.writeInt(entry.bytes.length);
+            out.write(entry.bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not store manifest " + entry.key, e);
+        }
+    }
+
+    @Nullable
+    private Entry readFromDisk(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            // Another key with the same hash owns this file
+            if (!key.equals(in.readUTF())) return null;
+            String type = in.readUTF();
+            Uri resolvedUri = Uri.parse(in.readUTF());
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            // Always revalidate after a restart, the TTL clock is per process
+            return new Entry(key, type, resolvedUri, bytes,
+                    etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified,
+                    Long.MIN_VALUE / 2, null);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read manifest " + key, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.unifiedvideo.player.cache;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.ByteArrayDataSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manifest data source backed by {@link ManifestCache}. Stored manifests are served
+ * without a request inside their TTL and revalidated with If-None-Match /
+ * If-Modified-Since after it; a 304 serves the stored bytes.
+ */
+public final class ManifestCacheDataSource implements DataSource {
+
+    /** Per stream type TTL lookup; entries of types without a TTL are always revalidated. */
+    public interface TtlProvider {
+        long getTtlMs(String type);
+    }
+
+    public static final class Factory implements DataSource.Factory {
+        private final ManifestCache cache;
+        private final DataSource.Factory upstreamFactory;
+        private final TtlProvider ttlProvider;
+
+        public Factory(ManifestCache cache, DataSource.Factory upstreamFactory, TtlProvider ttlProvider) {
+            this.cache = cache;
+            this.upstreamFactory = upstreamFactory;
+            this.ttlProvider = ttlProvider;
+        }
+
+        @Override
+        public DataSource createDataSource() {
+            return new ManifestCacheDataSource(cache, upstreamFactory.createDataSource(), ttlProvider);
+        }
+    }
+
+    private final ManifestCache cache;
+    private final DataSource upstream;
+    private final TtlProvider ttlProvider;
+    @Nullable private DataSource current;
+    @Nullable private Uri uri;
+
+    private ManifestCacheDataSource(ManifestCache cache, DataSource upstream, TtlProvider ttlProvider) {
+        this.cache = cache;
+        this.upstream = upstream;
+        this.ttlProvider = ttlProvider;
+    }
+
+    @Override
+    public void addTransferListener(TransferListener transferListener) {
+        upstream.addTransferListener(transferListener);
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+        String key = ManifestCache.keyFor(dataSpec.uri);
+        ManifestCache.Entry entry = cache.get(key);
+        if (entry != null
+                && SystemClock.elapsedRealtime() - entry.validatedAtMs < ttlProvider.getTtlMs(entry.type)) {
+            return openCached(entry, dataSpec);
+        }
+
+        DataSpec request = entry != null ? withValidators(dataSpec, entry) : dataSpec;
+        try {
+            long length = upstream.open(request);
+            current = upstream;
+            uri = upstream.getUri();
+            Map<String, List<String>> headers = upstream.getResponseHeaders();
+            cache.onResponse(key, uri != null ? uri : dataSpec.uri,
+                    header(headers, "ETag"), header(headers, "Last-Modified"));
+            return length;
+        } catch (HttpDataSource.InvalidResponseCodeException e) {
+            if (entry == null || e.responseCode != 304) throw e;
+            upstream.close();
+            entry.validatedAtMs = SystemClock.elapsedRealtime();
+            return openCached(entry, dataSpec);
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return current != null ? current.read(buffer, offset, length) : C.RESULT_END_OF_INPUT;
+    }
+
+    @Nullable
+    @Override
+    public Uri getUri() {
+        return uri;
+    }
+
+    @Override
+    public Map<String, List<String>> getResponseHeaders() {
+        return current == upstream ? upstream.getResponseHeaders() : Collections.emptyMap();
+    }
+
+    @Override
+    public void close() throws IOException {
+        uri = null;
+        if (current != null) {
+            try {
+                current.close();
+            } finally {
+                current = null;
+            }
+        }
+    }
+
+    private long openCached(ManifestCache.Entry entry, DataSpec dataSpec) throws IOException {
+        ByteArrayDataSource source = new ByteArrayDataSource(entry.bytes);
+        long length = source.open(dataSpec);
+        current = source;
+        uri = entry.resolvedUri;
+        cache.onResponse(entry.key, entry.resolvedUri, entry.etag, entry.lastModified);
+        return length;
+    }
+
+    private static DataSpec withValidators(DataSpec dataSpec, ManifestCache.Entry entry) {
+        if (entry.etag == null && entry.lastModified == null) return dataSpec;
+        Map<String, String> headers = new HashMap<>(dataSpec.httpRequestHeaders);
+        if (entry.etag != null) headers.put("If-None-Match", entry.etag);
+        if (entry.lastModified != null) headers.put("If-Modified-Since", entry.lastModified);
+        return dataSpec.buildUpon().setHttpRequestHeaders(headers).build();
+    }
+
+    @Nullable
+    private static String header(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (header.getKey() != null && header.getKey().equalsIgnoreCase(name) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,151 @@
+package com.unifiedvideo.player.cache;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.google.android.exoplayer2.database.StandaloneDatabaseProvider;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Process-wide disk cache for media segments, shared by every player instance.
+ * Entries are evicted least-recently-used once the byte budget is exceeded.
+ */
+public final class MediaCache {
+    private static final String TAG = "UVF-MediaCache";
+    private static final String CACHE_DIR = "uvf-media-cache";
+
+    // Token parameters of signed/expiring CDN URLs. Generic names such as "expires" or "sig"
+    // are only stripped when the query carries the CDN's signature marker, so unrelated
+    // parameters with the same name still tell resources apart.
+    private static final Set<String> AKAMAI_PARAMS = new HashSet<>(Arrays.asList(
+            "hdnts", "hdnea", "hdntl"));
+    private static final Set<String> S3_PARAMS = new HashSet<>(Arrays.asList(
+            "x-amz-algorithm", "x-amz-credential", "x-amz-date", "x-amz-expires",
+            "x-amz-signedheaders", "x-amz-signature", "x-amz-security-token"));
+    private static final Set<String> CLOUDFRONT_PARAMS = new HashSet<>(Arrays.asList(
+            "expires", "signature", "policy", "key-pair-id"));
+    private static final Set<String> AZURE_SAS_PARAMS = new HashSet<>(Arrays.asList(
+            "sv", "ss", "srt", "sp", "se", "st", "sr", "sig", "spr", "sip", "si",
+            "skoid", "sktid", "skt", "ske", "sks", "skv"));
+    private static final Set<String> customTokenParams = new HashSet<>();
+
+    public static final CacheKeyFactory STRIP_TOKENS_KEY_FACTORY =
+            dataSpec -> dataSpec.key != null ? dataSpec.key : buildCacheKey(dataSpec.uri, false);
+
+    public static final CacheKeyFactory IGNORE_QUERY_KEY_FACTORY =
+            dataSpec -> dataSpec.key != null ? dataSpec.key : buildCacheKey(dataSpec.uri, true);
+
+    private static SimpleCache cache;
+    private static long cacheMaxBytes;
+
+    private MediaCache() {}
+
+    /**
+     * Returns the shared cache, creating it on first use. The byte budget is fixed
+     * by the first caller; later calls with a different budget reuse the existing cache.
+     */
+    public static synchronized Cache getInstance(Context context, long maxBytes) {
+        if (cache == null) {
+            File dir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+            cache = new SimpleCache(dir,
+                    new LeastRecentlyUsedCacheEvictor(maxBytes),
+                    new StandaloneDatabaseProvider(context.getApplicationContext()));
+            cacheMaxBytes = maxBytes;
+        } else if (maxBytes != cacheMaxBytes) {
+            Log.w(TAG, "Cache already created with " + cacheMaxBytes + " bytes, ignoring " + maxBytes);
+        }
+        return cache;
+    }
+
+    /**
+     * Wraps an upstream factory so reads are served from, and written to, the shared cache.
+     * @param ignoreQuery drop the whole query string from cache keys instead of only token parameters
+     */
+    public static CacheDataSource.Factory buildDataSourceFactory(Context context, long maxBytes,
+                                                                 DataSource.Factory upstream, boolean ignoreQuery) {
+        return new CacheDataSource.Factory()
+                .setCache(getInstance(context, maxBytes))
+                .setUpstreamDataSourceFactory(upstream)
+                .setCacheKeyFactory(keyFactory(ignoreQuery))
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+    }
+
+    /**
+     * Like {@link #buildDataSourceFactory} but never writes to the cache. Used for manifests,
+     * which are only cached explicitly (by the preloader) when known to be VOD.
+     */
+    public static CacheDataSource.Factory buildReadOnlyDataSourceFactory(Context context, long maxBytes,
+                                                                         DataSource.Factory upstream, boolean ignoreQuery) {
+        return buildDataSourceFactory(context, maxBytes, upstream, ignoreQuery)
+                .setCacheWriteDataSinkFactory(null);
+    }
+
+    public static CacheKeyFactory keyFactory(boolean ignoreQuery) {
+        return ignoreQuery ? IGNORE_QUERY_KEY_FACTORY : STRIP_TOKENS_KEY_FACTORY;
+    }
+
+    /**
+     * Also strip these query parameters (case-insensitive) from cache keys, for CDNs or
+     * token schemes not recognised by default.
+     */
+    public static void addTokenParameters(String... names) {
+        synchronized (customTokenParams) {
+            for (String name : names) customTokenParams.add(name.toLowerCase(Locale.US));
+        }
+    }
+
+    /** Drops the shared cache; the next {@link #getInstance} call reopens it. */
+    public static synchronized void release() {
+        if (cache != null) {
+            cache.release();
+            cache = null;
+        }
+    }
+
+    /**
+     * Builds a cache key that stays stable when a CDN re-signs the same URL.
+     * The fragment is always dropped; token query parameters are dropped unless
+     * {@code ignoreQuery} is set, in which case the whole query is dropped.
+     */
+    public static String buildCacheKey(Uri uri, boolean ignoreQuery) {
+        if (uri.getQuery() == null) {
+            return uri.getFragment() == null ? uri.toString() : uri.buildUpon().fragment(null).build().toString();
+        }
+        Uri.Builder builder = uri.buildUpon().clearQuery().fragment(null);
+        if (!ignoreQuery) {
+            Set<String> names = uri.getQueryParameterNames();
+            Set<String> lowerNames = new HashSet<>();
+            for (String name : names) lowerNames.add(name.toLowerCase(Locale.US));
+            boolean cloudFront = lowerNames.contains("key-pair-id");
+            boolean azureSas = lowerNames.contains("sig") && lowerNames.contains("sv");
+            for (String name : names) {
+                if (isTokenParam(name.toLowerCase(Locale.US), cloudFront, azureSas)) continue;
+                for (String value : uri.getQueryParameters(name)) {
+                    builder.appendQueryParameter(name, value);
+                }
+            }
+        }
+        return builder.build().toString();
+    }
+
+    static boolean isTokenParam(String name, boolean cloudFront, boolean azureSas) {
+        if (AKAMAI_PARAMS.contains(name) || S3_PARAMS.contains(name)) return true;
+        if (cloudFront && CLOUDFRONT_PARAMS.contains(name)) return true;
+        if (azureSas && AZURE_SAS_PARAMS.contains(name)) return true;
+        synchronized (customTokenParams) {
+            return customTokenParams.contains(name);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.unifiedvideo.player.cache;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.dash.DashSegmentIndex;
+import com.google.android.exoplayer2.source.dash.DashUtil;
+import com.google.android.exoplayer2.source.dash.manifest.AdaptationSet;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifestParser;
+import com.google.android.exoplayer2.source.dash.manifest.Period;
+import com.google.android.exoplayer2.source.dash.manifest.RangedUri;
+import com.google.android.exoplayer2.source.dash.manifest.Representation;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMultivariantPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParser;
+import com.google.android.exoplayer2.source.smoothstreaming.manifest.SsManifest;
+import com.google.android.exoplayer2.source.smoothstreaming.manifest.SsManifestParser;
+import com.google.android.exoplayer2.upstream.ByteArrayDataSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSourceInputStream;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheWriter;
+import com.google.android.exoplayer2.util.UriUtil;
+import com.google.android.exoplayer2.util.Util;
+import com.unifiedvideo.player.AbrConfiguration;
+import com.unifiedvideo.player.PlayerConfiguration;
+import com.unifiedvideo.player.net.BandwidthStore;
+import com.unifiedvideo.player.net.HttpStack;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Warms the shared media cache ahead of playback so {@code load()} starts from disk.
+ * "auto" fetches the manifest, init segments and the first seconds of media,
+ * "metadata" fetches the manifest only and "none" fetches nothing.
+ * Live manifests are never written to the cache.
+ */
+public final class MediaPreloader {
+    private static final String TAG = "UVF-MediaPreloader";
+
+    public static final String MODE_AUTO = "auto";
+    public static final String MODE_METADATA = "metadata";
+    public static final String MODE_NONE = "none";
+
+    /** Bitrate used to pick a rendition and size progressive prefetches when no ABR estimate is configured. */
+    public static final long DEFAULT_TARGET_BITRATE = 1_500_000;
+    // Enough for the moov box of a fast-start MP4
+    private static final long METADATA_BYTES = 256 * 1024;
+
+    private static MediaPreloader instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "UVF-Preload");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final Map<String, Future<?>> inFlight = new HashMap<>();
+
+    private MediaPreloader() {}
+
+    public static synchronized MediaPreloader getInstance() {
+        if (instance == null) instance = new MediaPreloader();
+        return instance;
+    }
+
+    /**
+     * Schedule a preload of {@code uri} using {@code configuration.preload} as the mode.
+     * Requests for a source that is already being preloaded are ignored.
+     * @return the pending task, or null if nothing was scheduled
+     */
+    public synchronized Future<?> preload(Context context, Uri uri, String type, PlayerConfiguration configuration) {
+        String mode = configuration.preload != null ? configuration.preload : MODE_AUTO;
+        if (MODE_NONE.equals(mode)) return null;
+        String key = MediaCache.buildCacheKey(uri, configuration.cacheIgnoreQuery);
+        Future<?> pending = inFlight.get(key);
+        if (pending != null && !pending.isDone()) return pending;
+
+        Task task = new Task(context.getApplicationContext(), uri, type, configuration, MODE_AUTO.equals(mode));
+        Future<?> future = executor.submit(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                Log.w(TAG, "Preload failed for " + uri + ": " + e.getMessage());
+            } catch (Exception e) {
+                // Parser and cache errors would otherwise vanish into the unobserved Future
+                Log.w(TAG, "Preload failed for " + uri, e);
+            } finally {
+                synchronized (MediaPreloader.this) {
+                    inFlight.remove(key);
+                }
+            }
+        });
+        inFlight.put(key, future);
+        return future;
+    }
+
+    /** Cancel every queued or running preload. */
+    public synchronized void cancelAll() {
+        for (Future<?> f : inFlight.values()) f.cancel(true);
+        inFlight.clear();
+    }
+
+    private static final class Task {
+        private final Uri uri;
+        private final String type;
+        private final boolean fetchMedia;
+        private final long durationUs;
+        private final long targetBitrate;
+        private final Cache cache;
+        private final CacheKeyFactory keyFactory;
+        private final DataSource.Factory upstream;
+        private final CacheDataSource.Factory cacheFactory;
+
+        Task(Context context, Uri uri, String type, PlayerConfiguration configuration, boolean fetchMedia) {
+            this.uri = uri;
+            this.type = type;
+            this.fetchMedia = fetchMedia;
+            this.durationUs = configuration.preloadDurationMs * 1000;
+            AbrConfiguration abr = configuration.abrConfiguration;
+            long estimate = abr.useLastBandwidthEstimate ? BandwidthStore.getInstance(context).getCurrentEstimate() : -1;
+            if (estimate <= 0) estimate = abr.initialBitrateEstimate;
+            this.targetBitrate = estimate > 0 ? (long) (estimate * abr.bandwidthFraction) : DEFAULT_TARGET_BITRATE;
+            this.cache = MediaCache.getInstance(context, configuration.maxCacheBytes);
+            this.keyFactory = MediaCache.keyFactory(configuration.cacheIgnoreQuery);
+            // Shared client, so the connections warmed here are reused by playback
+            this.upstream = HttpStack.buildDataSourceFactory(context, configuration);
+            this.cacheFactory = MediaCache.buildDataSourceFactory(context, configuration.maxCacheBytes,
+                    upstream, configuration.cacheIgnoreQuery);
+        }
+
+        void run() throws IOException {
+            switch (type) {
+                case "hls":
+                    preloadHls();
+                    break;
+                case "dash":
+                    preloadDash();
+                    break;
+                case "smoothstreaming":
+                    preloadSs();
+                    break;
+                default:
+                    long bytes = fetchMedia ? durationUs * targetBitrate / 8 / C.MICROS_PER_SECOND : METADATA_BYTES;
+                    cacheRange(new DataSpec.Builder().setUri(uri).setLength(bytes).build());
+                    break;
+            }
+        }
+
+        private void preloadHls() throws IOException {
+            Manifest manifest = fetchManifest(uri);
+            HlsPlaylist playlist = new HlsPlaylistParser().parse(manifest.uri, manifest.stream());
+            if (playlist instanceof HlsMediaPlaylist) {
+                HlsMediaPlaylist media = (HlsMediaPlaylist) playlist;
+                if (!media.hasEndTag) return;
+                storeManifest(uri, manifest.data);
+                if (fetchMedia) cacheHlsSegments(media);
+                return;
+            }
+
+            HlsMultivariantPlaylist multivariant = (HlsMultivariantPlaylist) playlist;
+            int variant = pickByBitrate(multivariant.variants.size(), i -> multivariant.variants.get(i).format.bitrate);
+            if (variant < 0) return;
+            Uri audioUri = null;
+            for (HlsMultivariantPlaylist.Rendition audio : multivariant.audios) {
+                if (audio.url != null) {
+                    audioUri = audio.url;
+                    break;
+                }
+            }
+
+            // All-or-nothing: fetch and check every playlist before storing any, so a failure
+            // or a live rendition never leaves a multivariant playlist cached without its media
+            HlsPlaylistParser mediaParser = new HlsPlaylistParser(multivariant, null);
+            List<Uri> mediaUris = new ArrayList<>();
+            List<Manifest> mediaManifests = new ArrayList<>();
+            List<HlsMediaPlaylist> mediaPlaylists = new ArrayList<>();
+            for (Uri mediaUri : new Uri[] {multivariant.variants.get(variant).url, audioUri}) {
+                if (mediaUri == null) continue;
+                Manifest mediaManifest = fetchManifest(mediaUri);
+                HlsMediaPlaylist media = (HlsMediaPlaylist) mediaParser.parse(mediaManifest.uri, mediaManifest.stream());
+                if (!media.hasEndTag) return;
+                mediaUris.add(mediaUri);
+                mediaManifests.add(mediaManifest);
+                mediaPlaylists.add(media);
+            }
+
+            List<Uri> stored = new ArrayList<>();
+            try {
+                storeManifest(uri, manifest.data);
+                stored.add(uri);
+                for (int i = 0; i < mediaUris.size(); i++) {
+                    storeManifest(mediaUris.get(i), mediaManifests.get(i).data);
+                    stored.add(mediaUris.get(i));
+                }
+            } catch (IOException | RuntimeException e) {
+                for (Uri storedUri : stored) removeManifest(storedUri);
+                throw e;
+            }
+            if (fetchMedia) {
+                for (HlsMediaPlaylist media : mediaPlaylists) cacheHlsSegments(media);
+            }
+        }
+
+        private void cacheHlsSegments(HlsMediaPlaylist media) throws IOException {
+            Set<String> initSegments = new HashSet<>();
+            long loadedUs = 0;
+            for (HlsMediaPlaylist.Segment segment : media.segments) {
+                if (loadedUs >= durationUs) break;
+                HlsMediaPlaylist.Segment init = segment.initializationSegment;
+                if (init != null && initSegments.add(init.url + "@" + init.byteRangeOffset)) {
+                    cacheRange(hlsSegmentSpec(media, init));
+                }
+                cacheRange(hlsSegmentSpec(media, segment));
+                loadedUs += segment.durationUs;
+            }
+        }
+
+        private DataSpec hlsSegmentSpec(HlsMediaPlaylist media, HlsMediaPlaylist.Segment segment) {
+            return new DataSpec.Builder()
+                    .setUri(UriUtil.resolveToUri(media.baseUri, segment.url))
+                    .setPosition(segment.byteRangeOffset)
+                    .setLength(segment.byteRangeLength)
+                    .build();
+        }
+
+        private void preloadDash() throws IOException {
+            Manifest manifest = fetchManifest(uri);
+            DashManifest dash = new DashManifestParser().parse(manifest.uri, manifest.stream());
+            if (dash.dynamic) return;
+            storeManifest(uri, manifest.data);
+            if (!fetchMedia || dash.getPeriodCount() == 0) return;
+
+            Period period = dash.getPeriod(0);
+            long periodDurationUs = dash.getPeriodDurationUs(0);
+            boolean videoDone = false;
+            boolean audioDone = false;
+            for (AdaptationSet set : period.adaptationSets) {
+                List<Representation> representations = set.representations;
+                if (representations.isEmpty()) continue;
+                if (set.type == C.TRACK_TYPE_VIDEO && !videoDone) {
+                    int index = pickByBitrate(representations.size(), i -> representations.get(i).format.bitrate);
+                    cacheDashRepresentation(representations.get(index), periodDurationUs);
+                    videoDone = true;
+                } else if (set.type == C.TRACK_TYPE_AUDIO && !audioDone) {
+                    cacheDashRepresentation(representations.get(0), periodDurationUs);
+                    audioDone = true;
+                }
+            }
+        }
+
+        private void cacheDashRepresentation(Representation representation, long periodDurationUs) throws IOException {
+            RangedUri initUri = representation.getInitializationUri();
+            if (initUri != null) cacheRange(DashUtil.buildDataSpec(representation, initUri, 0));
+            RangedUri indexUri = representation.getIndexUri();
+            if (indexUri != null) cacheRange(DashUtil.buildDataSpec(representation, indexUri, 0));
+
+            // SegmentBase representations keep their index inside the media file; init + sidx is all we can warm
+            DashSegmentIndex index = representation.getIndex();
+            if (index == null) return;
+            long first = index.getFirstSegmentNum();
+            long count = index.getSegmentCount(periodDurationUs);
+            if (count == DashSegmentIndex.INDEX_UNBOUNDED) return;
+            for (long n = first; n < first + count; n++) {
+                if (index.getTimeUs(n) >= durationUs) break;
+                cacheRange(DashUtil.buildDataSpec(representation, index.getSegmentUrl(n), 0));
+            }
+        }
+
+        private void preloadSs() throws IOException {
+            Manifest manifest = fetchManifest(uri);
+            SsManifest ss = new SsManifestParser().parse(manifest.uri, manifest.stream());
+            if (ss.isLive) return;
+            storeManifest(uri, manifest.data);
+            if (!fetchMedia) return;
+
+            boolean videoDone = false;
+            boolean audioDone = false;
+            for (SsManifest.StreamElement element : ss.streamElements) {
+                if (element.chunkCount == 0) continue;
+                int track;
+                if (element.type == C.TRACK_TYPE_VIDEO && !videoDone) {
+                    track = pickByBitrate(element.formats.length, i -> element.formats[i].bitrate);
+                    videoDone = true;
+                } else if (element.type == C.TRACK_TYPE_AUDIO && !audioDone) {
+                    track = 0;
+                    audioDone = true;
+                } else {
+                    continue;
+                }
+                long startUs = element.getStartTimeUs(0);
+                for (int i = 0; i < element.chunkCount && element.getStartTimeUs(i) - startUs < durationUs; i++) {
+                    cacheRange(new DataSpec(element.buildRequestUri(track, i)));
+                }
+            }
+        }
+
+        /** Highest bitrate at or below the target, or the lowest one if all are above it. */
+        private int pickByBitrate(int count, BitrateLookup bitrateAt) {
+            int best = -1;
+            int lowest = -1;
+            for (int i = 0; i < count; i++) {
+                int bitrate = bitrateAt.bitrate(i);
+                if (bitrate == Format.NO_VALUE) continue;
+                if (lowest < 0 || bitrate < bitrateAt.bitrate(lowest)) lowest = i;
+                if (bitrate <= targetBitrate && (best < 0 || bitrate > bitrateAt.bitrate(best))) best = i;
+            }
+            if (best >= 0) return best;
+            if (lowest >= 0) return lowest;
+            return count > 0 ? 0 : -1;
+        }
+
+        private void cacheRange(DataSpec dataSpec) throws IOException {
+            if (Thread.currentThread().isInterrupted()) throw new IOException("Preload canceled");
+            new CacheWriter(cacheFactory.createDataSource(), dataSpec, null, null).cache();
+        }
+
+        /** Fetch a manifest from the network without caching it, following redirects. */
+        private Manifest fetchManifest(Uri manifestUri) throws IOException {
+            DataSource dataSource = upstream.createDataSource();
+            DataSourceInputStream in = new DataSourceInputStream(dataSource, new DataSpec(manifestUri));
+            try {
+                byte[] data = Util.toByteArray(in);
+                Uri resolved = dataSource.getUri();
+                return new Manifest(resolved != null ? resolved : manifestUri, data);
+            } finally {
+                Util.closeQuietly(in);
+            }
+        }
+
+        /** Write manifest bytes already in memory into the cache under the manifest's cache key. */
+        private void storeManifest(Uri manifestUri, byte[] data) throws IOException {
+            CacheDataSource dataSource = new CacheDataSource.Factory()
+                    .setCache(cache)
+                    .setCacheKeyFactory(keyFactory)
+                    .setUpstreamDataSourceFactory(() -> new ByteArrayDataSource(data))
+                    .createDataSource();
+            new CacheWriter(dataSource, new DataSpec(manifestUri), null, null).cache();
+        }
+
+        private void removeManifest(Uri manifestUri) {
+            try {
+                cache.removeResource(keyFactory.buildCacheKey(new DataSpec(manifestUri)));
+            } catch (Exception ignored) {}
+        }
+    }
+
+    private interface BitrateLookup {
+        int bitrate(int index);
+    }
+
+    private static final class Manifest {
+        final Uri uri;
+        final byte[] data;
+
+        Manifest(Uri uri, byte[] data) {
+            this.uri = uri;
+            this.data = data;
+        }
+
+        ByteArrayInputStream stream() {
+            return new ByteArrayInputStream(data);
+        }
+    }
+}
@@ -11,6 +11,8 @@ import com.google.android.gms.cast.framework.CastSession;
 import com.google.android.gms.cast.framework.SessionManagerListener;
 import com.google.android.gms.cast.framework.media.RemoteMediaClient;
 
+import com.unifiedvideo.player.util.ContentTypeResolver;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -117,11 +119,8 @@ public class CastManager {
     }
 
     private String inferSubtitleContentType(String url) {
-        String u = url != null ? url.toLowerCase() : "";
-        if (u.endsWith(".vtt")) return "text/vtt";
-        if (u.endsWith(".srt")) return "application/x-subrip";
-        if (u.endsWith(".ttml") || u.endsWith(".dfxp") || u.endsWith(".xml")) return "application/ttml+xml";
-        return "text/vtt";
+        ContentTypeResolver.ContentType type = ContentTypeResolver.resolve(url);
+        return type.subtitle ? type.mimeType : "text/vtt";
     }
 
     public static class SubtitleItem {
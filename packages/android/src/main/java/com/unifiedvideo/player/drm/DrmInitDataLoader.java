@@ -0,0 +1,49 @@
+package com.unifiedvideo.player.drm;
+
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.drm.DrmInitData;
+import com.google.android.exoplayer2.source.dash.DashUtil;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMultivariantPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParser;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.ParsingLoadable;
+
+import java.io.IOException;
+import java.util.List;
+
+/** Reads DRM init data from a manifest without preparing a player. Blocking. */
+final class DrmInitDataLoader {
+
+    private DrmInitDataLoader() {}
+
+    @Nullable
+    static DrmInitData load(DataSource dataSource, Uri uri, String type) throws IOException {
+        switch (type) {
+            case "dash": {
+                DashManifest manifest = DashUtil.loadManifest(dataSource, uri);
+                if (manifest.getPeriodCount() == 0) return null;
+                // Falls back to the init segment when the manifest carries no PSSH
+                Format format = DashUtil.loadFormatWithDrmInitData(dataSource, manifest.getPeriod(0));
+                return format != null ? format.drmInitData : null;
+            }
+            case "hls": {
+                HlsPlaylist playlist = ParsingLoadable.load(dataSource, new HlsPlaylistParser(), uri, C.DATA_TYPE_MANIFEST);
+                if (playlist instanceof HlsMultivariantPlaylist) {
+                    List<DrmInitData> sessionKeys = ((HlsMultivariantPlaylist) playlist).sessionKeyDrmInitData;
+                    return sessionKeys.isEmpty() ? null : sessionKeys.get(0);
+                }
+                return ((HlsMediaPlaylist) playlist).protectionSchemes;
+            }
+            default:
+                return null;
+        }
+    }
+}
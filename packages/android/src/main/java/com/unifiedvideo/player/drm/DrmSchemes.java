@@ -0,0 +1,22 @@
+package com.unifiedvideo.player.drm;
+
+import java.util.UUID;
+
+/**
+ * DRM scheme names as used in DRMConfiguration.type, mapped to their system UUIDs.
+ * Pure Java so it can be used (and benchmarked) without the Android runtime.
+ */
+public final class DrmSchemes {
+    public static final UUID WIDEVINE_UUID = new UUID(0xEDEF8BA979D64ACEL, 0xA3C827DCD51D21EDL);
+    public static final UUID PLAYREADY_UUID = new UUID(0x9A04F07998404286L, 0xAB92E65BE0885F95L);
+    public static final UUID CLEARKEY_UUID = new UUID(0xE2719D58A985B3C9L, 0x781AB030AF78D30EL);
+
+    private DrmSchemes() {}
+
+    /** UUID for "widevine", "playready" or "clearkey" (any case); Widevine for anything else. */
+    public static UUID uuidFor(String type) {
+        if ("playready".equalsIgnoreCase(type)) return PLAYREADY_UUID;
+        if ("clearkey".equalsIgnoreCase(type)) return CLEARKEY_UUID;
+        return WIDEVINE_UUID;
+    }
+}
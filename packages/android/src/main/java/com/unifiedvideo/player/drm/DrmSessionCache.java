@@ -0,0 +1,202 @@
+package com.unifiedvideo.player.drm;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.analytics.PlayerId;
+import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
+import com.google.android.exoplayer2.drm.DrmInitData;
+import com.google.android.exoplayer2.drm.DrmSessionManager;
+import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
+import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide cache of DRM session managers keyed by scheme, license URL, key ID and
+ * session mode. Each cached manager holds its own reference, so its sessions (and the keys
+ * loaded into them) outlive a single media source and are kept open for the keep-alive window
+ * after playback stops. A single-session manager hands its open session to the next source,
+ * so callers should only share a key between sources that use the same content keys.
+ * Every manager gets its own {@link FrameworkMediaDrm}, which delivers key events to one listener.
+ *
+ * <p>A session manager is bound to one playback thread, so entries are also keyed by the
+ * player's playback looper and must be dropped with {@link #evict(Looper)} before that
+ * player is released.
+ */
+public final class DrmSessionCache {
+    private static final String TAG = "UVF-DrmCache";
+    private static final int MAX_ENTRIES = 8;
+
+    /** Identifies the license a session manager serves, on one playback thread. */
+    public static final class Key {
+        public final UUID scheme;
+        public final String licenseUrl;
+        @Nullable public final String keyId;
+        public final boolean multiSession;
+        final Looper playbackLooper;
+
+        public Key(UUID scheme, String licenseUrl, @Nullable String keyId, boolean multiSession,
+                   Looper playbackLooper) {
+            this.scheme = scheme;
+            this.licenseUrl = licenseUrl;
+            this.keyId = keyId;
+            this.multiSession = multiSession;
+            this.playbackLooper = playbackLooper;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return scheme.equals(other.scheme)
+                    && Util.areEqual(licenseUrl, other.licenseUrl)
+                    && Util.areEqual(keyId, other.keyId)
+                    && multiSession == other.multiSession
+                    && playbackLooper == other.playbackLooper;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = scheme.hashCode();
+            result = 31 * result + (licenseUrl != null ? licenseUrl.hashCode() : 0);
+            result = 31 * result + (keyId != null ? keyId.hashCode() : 0);
+            result = 31 * result + (multiSession ? 1 : 0);
+            result = 31 * result + playbackLooper.hashCode();
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        final DefaultDrmSessionManager manager;
+        final HttpMediaDrmCallback callback;
+        final Handler handler;
+
+        Entry(DefaultDrmSessionManager manager, HttpMediaDrmCallback callback, Handler handler) {
+            this.manager = manager;
+            this.callback = callback;
+            this.handler = handler;
+        }
+
+        void release() {
+            handler.post(manager::release);
+        }
+    }
+
+    private static DrmSessionCache instance;
+
+    // Access-ordered, so the first entry is the least recently used one
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "UVF-DrmPrefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private DrmSessionCache() {}
+
+    public static synchronized DrmSessionCache getInstance() {
+        if (instance == null) instance = new DrmSessionCache();
+        return instance;
+    }
+
+    /**
+     * Returns the session manager for {@code key}, building and preparing it on first use.
+     * License request headers are refreshed on every call so rotated auth tokens apply to
+     * the next license or renewal request.
+     */
+    public synchronized DrmSessionManager get(Key key, @Nullable Map<String, String> headers,
+                                              HttpDataSource.Factory httpFactory, long keepAliveMs) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            HttpMediaDrmCallback callback = new HttpMediaDrmCallback(key.licenseUrl, httpFactory);
+            DefaultDrmSessionManager manager = new DefaultDrmSessionManager.Builder()
+                    .setUuidAndExoMediaDrmProvider(key.scheme, FrameworkMediaDrm.DEFAULT_PROVIDER)
+                    .setMultiSession(key.multiSession)
+                    .setSessionKeepaliveMs(keepAliveMs)
+                    .build(callback);
+            entry = new Entry(manager, callback, new Handler(key.playbackLooper));
+            // Hold a reference of our own so the manager survives its media sources
+            entry.handler.post(() -> {
+                manager.setPlayer(key.playbackLooper, PlayerId.UNSET);
+                manager.prepare();
+            });
+            entries.put(key, entry);
+            trim();
+        }
+        entry.callback.clearAllKeyRequestProperties();
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                entry.callback.setKeyRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+        return entry.manager;
+    }
+
+    /**
+     * Fetch the manifest for a cached entry in the background and acquire a session for its
+     * DRM init data, so the license is in place before playback starts. The session then
+     * stays open for the keep-alive window. No-op if {@link #get} has not been called for the key.
+     */
+    public void prefetch(Key key, DataSource.Factory dataSourceFactory, Uri manifestUri, String type) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) return;
+        Entry target = entry;
+        prefetchExecutor.execute(() -> {
+            DrmInitData drmInitData;
+            try {
+                drmInitData = DrmInitDataLoader.load(dataSourceFactory.createDataSource(), manifestUri, type);
+            } catch (IOException e) {
+                Log.w(TAG, "Key prefetch failed for " + manifestUri, e);
+                return;
+            }
+            if (drmInitData == null) return;
+            Format format = new Format.Builder().setDrmInitData(drmInitData).build();
+            target.handler.post(() -> target.manager.preacquireSession(null, format).release());
+        });
+    }
+
+    /** Release every entry bound to a playback thread. Call before releasing that player. */
+    public synchronized void evict(Looper playbackLooper) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().playbackLooper == playbackLooper) {
+                e.getValue().release();
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) entry.release();
+        entries.clear();
+    }
+
+    private void trim() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            it.next().release();
+            it.remove();
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+package com.unifiedvideo.player.drm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Base64;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
+import com.google.android.exoplayer2.drm.DrmInitData;
+import com.google.android.exoplayer2.drm.DrmSession;
+import com.google.android.exoplayer2.drm.DrmSessionEventListener;
+import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
+import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
+import com.google.android.exoplayer2.drm.OfflineLicenseHelper;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent (offline) licenses, stored as key set IDs on disk so cold starts of a DRM
+ * title restore keys locally instead of waiting on the license server. Licenses are
+ * renewed in the background before they expire, while the process is alive. Licenses whose
+ * duration the CDM does not report are kept until playback with them fails.
+ */
+public final class OfflineLicenseStore {
+    private static final String TAG = "UVF-OfflineLicense";
+    private static final String PREFS = "uvf_offline_licenses";
+    private static final long MIN_RENEW_MARGIN_MS = 60 * 60 * 1000;
+    private static final long RETRY_DELAY_MS = 15 * 60 * 1000;
+    // Keys restored this close to expiry would lapse mid-playback, so they are not used
+    private static final long MIN_REMAINING_MS = 60 * 1000;
+
+    /** License server details, kept in memory so renewals can reach the server. */
+    public static final class LicenseRequest {
+        public final UUID scheme;
+        public final String licenseUrl;
+        @Nullable public final Map<String, String> headers;
+        final HttpDataSource.Factory httpFactory;
+
+        public LicenseRequest(UUID scheme, String licenseUrl, @Nullable Map<String, String> headers,
+                              HttpDataSource.Factory httpFactory) {
+            this.scheme = scheme;
+            this.licenseUrl = licenseUrl;
+            this.headers = headers;
+            this.httpFactory = httpFactory;
+        }
+    }
+
+    private static final class Record {
+        final byte[] keySetId;
+        final long acquiredAtMs;
+        final long expiresAtMs;
+
+        Record(byte[] keySetId, long acquiredAtMs, long expiresAtMs) {
+            this.keySetId = keySetId;
+            this.acquiredAtMs = acquiredAtMs;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        long renewAtMs() {
+            long margin = Math.max(MIN_RENEW_MARGIN_MS, (expiresAtMs - acquiredAtMs) / 5);
+            return expiresAtMs - margin;
+        }
+
+        String encode() {
+            return acquiredAtMs + ";" + expiresAtMs + ";" + Base64.encodeToString(keySetId, Base64.NO_WRAP);
+        }
+
+        @Nullable
+        static Record decode(@Nullable String value) {
+            if (value == null) return null;
+            try {
+                String[] parts = value.split(";", 3);
+                return new Record(Base64.decode(parts[2], Base64.NO_WRAP),
+                        Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+    private static OfflineLicenseStore instance;
+
+    private final SharedPreferences prefs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "UVF-OfflineLicense");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, ScheduledFuture<?>> renewals = new HashMap<>();
+    private final Set<String> acquiring = new HashSet<>();
+
+    private OfflineLicenseStore(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized OfflineLicenseStore getInstance(Context context) {
+        if (instance == null) instance = new OfflineLicenseStore(context);
+        return instance;
+    }
+
+    /** The stored key set ID for {@code contentKey}, or null if none is stored or it has expired. */
+    @Nullable
+    public byte[] getKeySetId(String contentKey) {
+        Record record = Record.decode(prefs.getString(contentKey, null));
+        if (record == null) return null;
+        if (record.expiresAtMs - System.currentTimeMillis() < MIN_REMAINING_MS) {
+            prefs.edit().remove(contentKey).apply();
+            return null;
+        }
+        return record.keySetId;
+    }
+
+    /**
+     * Download a persistent license in the background, reading DRM init data from the
+     * manifest. Ignored while an acquisition for the same content is already running.
+     */
+    public void acquire(String contentKey, LicenseRequest request, DataSource.Factory manifestDataSourceFactory,
+                        Uri manifestUri, String type) {
+        synchronized (acquiring) {
+            if (!acquiring.add(contentKey)) return;
+        }
+        executor.execute(() -> {
+            try {
+                DrmInitData drmInitData = DrmInitDataLoader.load(manifestDataSourceFactory.createDataSource(), manifestUri, type);
+                if (drmInitData == null) return;
+                Format format = new Format.Builder().setDrmInitData(drmInitData).build();
+                OfflineLicenseHelper helper = newHelper(request);
+                try {
+                    store(contentKey, helper.downloadLicense(format), helper);
+                } finally {
+                    helper.release();
+                }
+                scheduleRenewal(contentKey, request);
+            } catch (IOException | DrmSession.DrmSessionException e) {
+                Log.w(TAG, "Offline license download failed for " + contentKey, e);
+            } finally {
+                synchronized (acquiring) {
+                    acquiring.remove(contentKey);
+                }
+            }
+        });
+    }
+
+    /** Schedule a background renewal ahead of the stored license's expiry. */
+    public void scheduleRenewal(String contentKey, LicenseRequest request) {
+        Record record = Record.decode(prefs.getString(contentKey, null));
+        if (record == null || record.expiresAtMs == Long.MAX_VALUE) return;
+        scheduleRenewal(contentKey, request, record.renewAtMs() - System.currentTimeMillis());
+    }
+
+    /** Forget a stored license that failed to restore, so the next load acquires a new one. */
+    public void invalidate(String contentKey) {
+        cancelRenewal(contentKey);
+        prefs.edit().remove(contentKey).apply();
+    }
+
+    /** Release the license on the server and forget it. */
+    public void remove(String contentKey, LicenseRequest request) {
+        cancelRenewal(contentKey);
+        Record record = Record.decode(prefs.getString(contentKey, null));
+        prefs.edit().remove(contentKey).apply();
+        if (record == null) return;
+        executor.execute(() -> {
+            OfflineLicenseHelper helper = newHelper(request);
+            try {
+                helper.releaseLicense(record.keySetId);
+            } catch (DrmSession.DrmSessionException e) {
+                Log.w(TAG, "Offline license release failed for " + contentKey, e);
+            } finally {
+                helper.release();
+            }
+        });
+    }
+
+    private void scheduleRenewal(String contentKey, LicenseRequest request, long delayMs) {
+        synchronized (renewals) {
+            ScheduledFuture<?> previous = renewals.remove(contentKey);
+            if (previous != null) previous.cancel(false);
+            renewals.put(contentKey, executor.schedule(() -> renew(contentKey, request),
+                    Math.max(0, delayMs), TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void cancelRenewal(String contentKey) {
+        synchronized (renewals) {
+            ScheduledFuture<?> previous = renewals.remove(contentKey);
+            if (previous != null) previous.cancel(false);
+        }
+    }
+
+    private void renew(String contentKey, LicenseRequest request) {
+        Record record = Record.decode(prefs.getString(contentKey, null));
+        if (record == null) return;
+        OfflineLicenseHelper helper = newHelper(request);
+        try {
+            store(contentKey, helper.renewLicense(record.keySetId), helper);
+            scheduleRenewal(contentKey, request);
+        } catch (DrmSession.DrmSessionException e) {
+            Log.w(TAG, "Offline license renewal failed for " + contentKey, e);
+            if (record.expiresAtMs > System.currentTimeMillis() + RETRY_DELAY_MS) {
+                scheduleRenewal(contentKey, request, RETRY_DELAY_MS);
+            }
+        } finally {
+            helper.release();
+        }
+    }
+
+    private void store(String contentKey, byte[] keySetId, OfflineLicenseHelper helper)
+            throws DrmSession.DrmSessionException {
+        Pair<Long, Long> remaining = helper.getLicenseDurationRemainingSec(keySetId);
+        long now = System.currentTimeMillis();
+        long expiresAt = expiresAtMs(now, remaining != null && remaining.first != null ? remaining.first : C.TIME_UNSET);
+        prefs.edit().putString(contentKey, new Record(keySetId, now, expiresAt).encode()).apply();
+    }
+
+    /**
+     * Expiry time for a license with {@code remainingSec} left. {@link C#TIME_UNSET} and negative
+     * values (ClearKey, PlayReady, no duration reported) are treated as no known expiry.
+     */
+    static long expiresAtMs(long nowMs, long remainingSec) {
+        if (remainingSec < 0) return Long.MAX_VALUE;
+        if (remainingSec >= (Long.MAX_VALUE - nowMs) / 1000) return Long.MAX_VALUE;
+        return nowMs + remainingSec * 1000;
+    }
+
+    private static OfflineLicenseHelper newHelper(LicenseRequest request) {
+        HttpMediaDrmCallback callback = new HttpMediaDrmCallback(request.licenseUrl, request.httpFactory);
+        if (request.headers != null) {
+            for (Map.Entry<String, String> header : request.headers.entrySet()) {
+                callback.setKeyRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+        DefaultDrmSessionManager manager = new DefaultDrmSessionManager.Builder()
+                .setUuidAndExoMediaDrmProvider(request.scheme, FrameworkMediaDrm.DEFAULT_PROVIDER)
+                .build(callback);
+        return new OfflineLicenseHelper(manager, new DrmSessionEventListener.EventDispatcher());
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * LatencyHistogram.java
+ * Lock-free latency histogram for UnifiedVideoPlayer instrumentation
+ */
+
+package com.unifiedvideo.player.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR-style log-linear histogram of millisecond latencies. Values below 32 ms are exact;
+ * above that each power of two is split into 16 buckets, so reported percentiles are within
+ * about 6% of the true value. Recording is a single atomic increment and never allocates
+ * or locks, so it is safe from any thread.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    /** Largest trackable value, about 35 years; larger values are clamped. */
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long valueMs) {
+        long value = Math.min(Math.max(0, valueMs), MAX_VALUE);
+        buckets.incrementAndGet(indexOf(value));
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) break;
+        }
+    }
+
+    /** Percentiles of everything recorded so far. Concurrent records may or may not be included. */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long maxValue = max.get();
+        return new Snapshot(name, total,
+            percentile(counts, total, 0.50, maxValue),
+            percentile(counts, total, 0.90, maxValue),
+            percentile(counts, total, 0.99, maxValue),
+            maxValue);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) buckets.set(i, 0);
+        max.set(0);
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBoundOf(i), maxValue);
+        }
+        return maxValue;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) ((value >>> shift) - HALF);
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long sub = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /** Immutable percentile export; values in milliseconds, 0 when nothing was recorded. */
+    public static final class Snapshot {
+        public final String name;
+        public final long count;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long max;
+
+        Snapshot(String name, long count, long p50, long p90, long p99, long max) {
+            this.name = name;
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public String toJson() {
+            return "{\"count\":" + count +
+                    ",\"p50\":" + p50 +
+                    ",\"p90\":" + p90 +
+                    ",\"p99\":" + p99 +
+                    ",\"max\":" + max +
+                    '}';
+        }
+
+        @Override
+        public String toString() {
+            return name + toJson();
+        }
+    }
+}
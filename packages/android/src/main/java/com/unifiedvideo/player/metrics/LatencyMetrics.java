@@ -0,0 +1,73 @@
+/**
+ * LatencyMetrics.java
+ * Process-wide playback phase latencies for UnifiedVideoPlayer
+ */
+
+package com.unifiedvideo.player.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Latency histograms shared by every player in the process, so tail latency is measured
+ * across sessions rather than per instance. Players record into it; apps export
+ * {@link #snapshot()} or {@link #toJson()} to their own telemetry.
+ */
+public final class LatencyMetrics {
+    public static final String LOAD_TO_FIRST_FRAME = "loadToFirstFrame";
+    public static final String SEEK_TO_READY = "seekToReady";
+    public static final String DRM_KEY_LOAD = "drmKeyLoad";
+    public static final String MANIFEST_LOAD = "manifestLoad";
+    public static final String FIRST_SEGMENT_LOAD = "firstSegmentLoad";
+
+    private static LatencyMetrics instance;
+
+    /** load() until the first rendered frame. */
+    public final LatencyHistogram loadToFirstFrame = new LatencyHistogram(LOAD_TO_FIRST_FRAME);
+    /** seekTo() until READY. */
+    public final LatencyHistogram seekToReady = new LatencyHistogram(SEEK_TO_READY);
+    /** DRM session acquired until its keys are loaded. */
+    public final LatencyHistogram drmKeyLoad = new LatencyHistogram(DRM_KEY_LOAD);
+    /** Download time of each manifest or playlist. */
+    public final LatencyHistogram manifestLoad = new LatencyHistogram(MANIFEST_LOAD);
+    /** Download time of the first media segment after load(). */
+    public final LatencyHistogram firstSegmentLoad = new LatencyHistogram(FIRST_SEGMENT_LOAD);
+
+    private final List<LatencyHistogram> all;
+
+    private LatencyMetrics() {
+        List<LatencyHistogram> list = new ArrayList<>();
+        list.add(loadToFirstFrame);
+        list.add(seekToReady);
+        list.add(drmKeyLoad);
+        list.add(manifestLoad);
+        list.add(firstSegmentLoad);
+        all = Collections.unmodifiableList(list);
+    }
+
+    public static synchronized LatencyMetrics getInstance() {
+        if (instance == null) instance = new LatencyMetrics();
+        return instance;
+    }
+
+    public List<LatencyHistogram.Snapshot> snapshot() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>(all.size());
+        for (LatencyHistogram histogram : all) snapshots.add(histogram.snapshot());
+        return snapshots;
+    }
+
+    /** Every phase keyed by name, e.g. {"seekToReady":{"count":3,"p50":120,...},...}. */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        for (LatencyHistogram histogram : all) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(histogram.getName()).append("\":").append(histogram.snapshot().toJson());
+        }
+        return sb.append('}').toString();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : all) histogram.reset();
+    }
+}
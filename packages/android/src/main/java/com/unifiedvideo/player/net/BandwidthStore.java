@@ -0,0 +1,160 @@
+package com.unifiedvideo.player.net;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+import com.google.android.exoplayer2.util.NetworkTypeObserver;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Remembers the last bandwidth estimates per network type across sessions, so a new player
+ * can start at a realistic bitrate instead of the conservative built-in default.
+ * Stored samples are read on a background thread; until then there are no estimates and
+ * players use the default. {@code UnifiedVideoPlayer.prewarmPlayers} starts loading early.
+ */
+public final class BandwidthStore {
+    private static final String PREFS_NAME = "uvf_bandwidth";
+    private static final String KEY_PREFIX = "samples_";
+    private static final int MAX_SAMPLES = 10;
+    // Persist every few samples rather than on every estimate
+    private static final int SAMPLES_PER_WRITE = 5;
+
+    private static final int[] NETWORK_TYPES = {
+            C.NETWORK_TYPE_WIFI, C.NETWORK_TYPE_ETHERNET, C.NETWORK_TYPE_2G, C.NETWORK_TYPE_3G,
+            C.NETWORK_TYPE_4G, C.NETWORK_TYPE_5G_NSA, C.NETWORK_TYPE_5G_SA, C.NETWORK_TYPE_OTHER
+    };
+
+    private static BandwidthStore instance;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "UVF-BandwidthStore");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Context context;
+    private final long[][] samples = new long[NETWORK_TYPES.length][];
+    private final int[] counts = new int[NETWORK_TYPES.length];
+    private SharedPreferences prefs;
+    private int unsavedSamples;
+    private boolean flushRequested;
+
+    private BandwidthStore(Context context) {
+        this.context = context.getApplicationContext();
+        for (int i = 0; i < NETWORK_TYPES.length; i++) {
+            samples[i] = new long[MAX_SAMPLES];
+        }
+        executor.execute(this::load);
+    }
+
+    public static synchronized BandwidthStore getInstance(Context context) {
+        if (instance == null) instance = new BandwidthStore(context);
+        return instance;
+    }
+
+    private void load() {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long[][] stored = new long[NETWORK_TYPES.length][];
+        for (int i = 0; i < NETWORK_TYPES.length; i++) {
+            stored[i] = parse(prefs.getString(KEY_PREFIX + NETWORK_TYPES[i], null));
+        }
+        synchronized (this) {
+            // Samples recorded while loading are newer than the stored ones
+            for (int i = 0; i < NETWORK_TYPES.length; i++) {
+                long[] merged = new long[stored[i].length + counts[i]];
+                System.arraycopy(stored[i], 0, merged, 0, stored[i].length);
+                System.arraycopy(samples[i], 0, merged, stored[i].length, counts[i]);
+                int keep = Math.min(merged.length, MAX_SAMPLES);
+                System.arraycopy(merged, merged.length - keep, samples[i], 0, keep);
+                counts[i] = keep;
+            }
+            this.prefs = prefs;
+            if (flushRequested || unsavedSamples >= SAMPLES_PER_WRITE) flush();
+        }
+    }
+
+    private static long[] parse(String stored) {
+        if (stored == null || stored.isEmpty()) return new long[0];
+        long[] values = new long[MAX_SAMPLES];
+        int count = 0;
+        for (String value : stored.split(",")) {
+            if (count == MAX_SAMPLES) break;
+            try {
+                values[count] = Long.parseLong(value);
+                count++;
+            } catch (NumberFormatException ignored) {}
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /** Record an estimate for the current network type. */
+    public synchronized void addSample(long bitsPerSecond) {
+        if (bitsPerSecond <= 0) return;
+        int slot = slotOf(NetworkTypeObserver.getInstance(context).getNetworkType());
+        if (slot < 0) return;
+        long[] values = samples[slot];
+        if (counts[slot] == MAX_SAMPLES) {
+            System.arraycopy(values, 1, values, 0, MAX_SAMPLES - 1);
+            values[MAX_SAMPLES - 1] = bitsPerSecond;
+        } else {
+            values[counts[slot]++] = bitsPerSecond;
+        }
+        if (++unsavedSamples >= SAMPLES_PER_WRITE) flush();
+    }
+
+    /** Median of the stored samples for a network type, or -1 when there are none. */
+    public synchronized long getEstimate(int networkType) {
+        int slot = slotOf(networkType);
+        if (slot < 0 || counts[slot] == 0) return -1;
+        long[] sorted = Arrays.copyOf(samples[slot], counts[slot]);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /** Estimate for the network the device is on now, or -1. */
+    public long getCurrentEstimate() {
+        return getEstimate(NetworkTypeObserver.getInstance(context).getNetworkType());
+    }
+
+    /** Seed a bandwidth meter with every network type that has stored samples. */
+    public synchronized void applyTo(DefaultBandwidthMeter.Builder builder) {
+        for (int networkType : NETWORK_TYPES) {
+            long estimate = getEstimate(networkType);
+            if (estimate > 0) builder.setInitialBitrateEstimate(networkType, estimate);
+        }
+    }
+
+    /** Write pending samples to disk asynchronously, or once loading has finished. */
+    public synchronized void flush() {
+        if (unsavedSamples == 0) return;
+        if (prefs == null) {
+            flushRequested = true;
+            return;
+        }
+        flushRequested = false;
+        unsavedSamples = 0;
+        SharedPreferences.Editor editor = prefs.edit();
+        for (int i = 0; i < NETWORK_TYPES.length; i++) {
+            if (counts[i] == 0) continue;
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < counts[i]; j++) {
+                if (j > 0) sb.append(',');
+                sb.append(samples[i][j]);
+            }
+            editor.putString(KEY_PREFIX + NETWORK_TYPES[i], sb.toString());
+        }
+        editor.apply();
+    }
+
+    private static int slotOf(int networkType) {
+        for (int i = 0; i < NETWORK_TYPES.length; i++) {
+            if (NETWORK_TYPES[i] == networkType) return i;
+        }
+        return -1;
+    }
+}
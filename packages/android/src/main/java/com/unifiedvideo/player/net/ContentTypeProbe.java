@@ -0,0 +1,120 @@
+package com.unifiedvideo.player.net;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.unifiedvideo.player.PlayerConfiguration;
+import com.unifiedvideo.player.util.ContentTypeResolver;
+import com.unifiedvideo.player.util.ContentTypeResolver.ContentType;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Confirms the type of URLs without a recognised extension with a HEAD request on the
+ * shared client. Results are memoized per host and path pattern (segments containing
+ * digits collapse to "*"), so one probe covers e.g. every channel of the same origin.
+ */
+public final class ContentTypeProbe {
+    private static final String TAG = "UVF-ContentTypeProbe";
+    private static final int MAX_ENTRIES = 128;
+
+    private static final Map<String, ContentType> memo = new LinkedHashMap<String, ContentType>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ContentType> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "UVF-ContentTypeProbe");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Receives the result of {@link #resolveAsync}. */
+    public interface Callback {
+        void onResolved(ContentType type);
+    }
+
+    private ContentTypeProbe() {}
+
+    /** {@link #resolve} on a background thread, delivering the result through {@code handler}. */
+    public static void resolveAsync(PlayerConfiguration configuration, String url, Handler handler, Callback callback) {
+        executor.execute(() -> {
+            ContentType type = resolve(configuration, url);
+            handler.post(() -> callback.onResolved(type));
+        });
+    }
+
+    /** The memoized result for the URL's host and path pattern, without any request. */
+    @Nullable
+    public static ContentType getCached(String url) {
+        synchronized (memo) {
+            return memo.get(pattern(Uri.parse(url)));
+        }
+    }
+
+    /**
+     * Resolve by extension, falling back to a HEAD request. Blocking; call off the main thread.
+     * Returns {@link ContentTypeResolver#UNKNOWN} if the server gives no usable Content-Type.
+     */
+    public static ContentType resolve(PlayerConfiguration configuration, String url) {
+        ContentType type = ContentTypeResolver.resolve(url);
+        if (type.isKnown()) return type;
+        Uri uri = Uri.parse(url);
+        if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) return type;
+        String key = pattern(uri);
+        synchronized (memo) {
+            ContentType cached = memo.get(key);
+            if (cached != null) return cached;
+        }
+        OkHttpClient client = HttpStack.getClient(configuration);
+        Request request = new Request.Builder().url(url).head().build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) return ContentTypeResolver.UNKNOWN;
+            type = ContentTypeResolver.resolveMimeType(response.header("Content-Type"));
+            if (!type.isKnown()) {
+                // Redirected to a URL with an extension
+                type = ContentTypeResolver.resolve(response.request().url().toString());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "HEAD probe failed for " + url, e);
+            return ContentTypeResolver.UNKNOWN;
+        }
+        if (type.isKnown()) {
+            synchronized (memo) {
+                memo.put(key, type);
+            }
+        }
+        return type;
+    }
+
+    private static String pattern(Uri uri) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(uri.getHost());
+        List<String> segments = uri.getPathSegments();
+        for (String segment : segments) {
+            sb.append('/').append(hasDigit(segment) ? "*" : segment);
+        }
+        return sb.toString();
+    }
+
+    private static boolean hasDigit(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isDigit(s.charAt(i))) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+package com.unifiedvideo.player.net;
+
+import android.content.Context;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ext.okhttp.OkHttpDataSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultDataSource;
+import com.google.android.exoplayer2.util.NetworkTypeObserver;
+import com.unifiedvideo.player.PlayerConfiguration;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide OkHttp client shared by media, DRM license and subtitle requests, so they
+ * reuse pooled HTTP/2 connections and TLS sessions instead of each opening their own.
+ * Timeouts and pool size are taken from the first configuration that uses it. Idle
+ * connections are dropped when the device changes network type.
+ */
+public final class HttpStack {
+    private static OkHttpClient client;
+    private static boolean observingNetwork;
+    private static int networkType = C.NETWORK_TYPE_UNKNOWN;
+    private static final AtomicLong connectCount = new AtomicLong();
+    private static final AtomicLong tlsHandshakeCount = new AtomicLong();
+    // Closing TLS sockets may write, so eviction stays off the main thread
+    private static final ExecutorService evictor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "UVF-HttpEvict");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private HttpStack() {}
+
+    public static synchronized OkHttpClient getClient(PlayerConfiguration configuration) {
+        if (client == null) client = clientBuilder(configuration).build();
+        return client;
+    }
+
+    /** Settings of the shared client, with its own connection pool. Tests add a trust store. */
+    static OkHttpClient.Builder clientBuilder(PlayerConfiguration configuration) {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(configuration.httpMaxIdleConnections,
+                        configuration.httpKeepAliveMs, TimeUnit.MILLISECONDS))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(configuration.httpConnectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(configuration.httpReadTimeoutMs, TimeUnit.MILLISECONDS)
+                .eventListener(connectionCounter);
+    }
+
+    /** HTTP(S) data source backed by the shared client, for DRM license requests. */
+    public static OkHttpDataSource.Factory buildHttpDataSourceFactory(PlayerConfiguration configuration) {
+        return new OkHttpDataSource.Factory(getClient(configuration));
+    }
+
+    /** Data source for media and subtitles: shared client for HTTP(S), platform sources for file/asset/content URIs. */
+    public static DataSource.Factory buildDataSourceFactory(Context context, PlayerConfiguration configuration) {
+        observeNetworkChanges(context);
+        return new DefaultDataSource.Factory(context, buildHttpDataSourceFactory(configuration));
+    }
+
+    /** Number of new TCP connections opened by the shared client. */
+    public static long getConnectCount() {
+        return connectCount.get();
+    }
+
+    /** Number of TLS handshakes performed by the shared client. */
+    public static long getTlsHandshakeCount() {
+        return tlsHandshakeCount.get();
+    }
+
+    /** Close idle connections, e.g. after a network change. */
+    public static synchronized void evictConnections() {
+        if (client != null) client.connectionPool().evictAll();
+    }
+
+    /** Connections opened on the previous network would keep dialling its addresses. */
+    private static synchronized void observeNetworkChanges(Context context) {
+        if (observingNetwork) return;
+        observingNetwork = true;
+        NetworkTypeObserver.getInstance(context).register(networkListener);
+    }
+
+    // Held here because the observer only keeps weak references to its listeners
+    private static final NetworkTypeObserver.Listener networkListener = type -> {
+        // The first callback reports the current network
+        int previous = networkType;
+        networkType = type;
+        if (previous != C.NETWORK_TYPE_UNKNOWN && previous != type) evictor.execute(HttpStack::evictConnections);
+    };
+
+    private static final EventListener connectionCounter = new EventListener() {
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectCount.incrementAndGet();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            tlsHandshakeCount.incrementAndGet();
+        }
+    };
+}
@@ -0,0 +1,152 @@
+package com.unifiedvideo.player.overlay;
+
+import java.nio.charset.Charset;
+
+/**
+ * Forensic watermark code: a 64-bit payload derived from the session and user IDs, plus a
+ * CRC-16, is spread over a cycle of watermark positions on a {@value #COLUMNS}x{@value #ROWS}
+ * grid. Each move shows one 4-bit symbol (one of the first 16 cells); the last cell marks the
+ * start of a cycle, so a capture can be decoded from any point. Symbols are whitened with a
+ * keyed sequence so the movement looks random without the key.
+ *
+ * <p>Plain Java, so captures can be decoded off-device: map each observed label position to a
+ * cell with {@link #cellAt(float, float)} and pass the sequence to {@link #decode(int[])}.
+ */
+public final class ForensicWatermark {
+    public static final int COLUMNS = 4;
+    public static final int ROWS = 5;
+    /** Cell shown at the start of every cycle. */
+    public static final int SYNC_CELL = COLUMNS * ROWS - 1;
+    /** Payload and CRC nibbles. */
+    public static final int DATA_SYMBOLS = 20;
+    public static final int CYCLE_LENGTH = DATA_SYMBOLS + 1;
+    /** Marks a move that was not observed. */
+    public static final int UNKNOWN_CELL = -1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] ID_SEPARATOR = {0};
+
+    private final int[] whitening = new int[DATA_SYMBOLS];
+
+    public ForensicWatermark(long key) {
+        for (int i = 0; i < DATA_SYMBOLS; i++) {
+            whitening[i] = (int) (mix(key + i) & 0xF);
+        }
+    }
+
+    /** 64-bit FNV-1a of the session and user IDs; investigators match it against session logs. */
+    public static long payloadFor(String sessionId, String userId) {
+        long hash = fnv(0xcbf29ce484222325L, sessionId.getBytes(UTF_8));
+        hash = fnv(hash, ID_SEPARATOR);
+        return fnv(hash, userId.getBytes(UTF_8));
+    }
+
+    /** One cycle of cells: the sync cell followed by the whitened payload and CRC nibbles. */
+    public int[] encode(long payload) {
+        int crc = crc16(payload);
+        int[] cycle = new int[CYCLE_LENGTH];
+        cycle[0] = SYNC_CELL;
+        for (int i = 0; i < 16; i++) {
+            cycle[1 + i] = (int) ((payload >>> (60 - 4 * i)) & 0xF) ^ whitening[i];
+        }
+        for (int i = 0; i < 4; i++) {
+            cycle[17 + i] = ((crc >>> (12 - 4 * i)) & 0xF) ^ whitening[16 + i];
+        }
+        return cycle;
+    }
+
+    public int[] encode(String sessionId, String userId) {
+        return encode(payloadFor(sessionId, userId));
+    }
+
+    /**
+     * Recover the payload from observed cells in display order, one per move. Captures may
+     * start anywhere and contain {@link #UNKNOWN_CELL} gaps; repeated cycles are combined by
+     * majority vote. Returns null if no symbol could be read for some position or the CRC fails.
+     */
+    public Long decode(int[] cells) {
+        int phase = -1;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == SYNC_CELL) {
+                phase = i % CYCLE_LENGTH;
+                break;
+            }
+        }
+        if (phase < 0) return null;
+
+        int[][] votes = new int[DATA_SYMBOLS][16];
+        for (int i = 0; i < cells.length; i++) {
+            int position = ((i - phase) % CYCLE_LENGTH + CYCLE_LENGTH) % CYCLE_LENGTH;
+            int cell = cells[i];
+            if (position == 0 || cell < 0 || cell >= 16) continue;
+            votes[position - 1][cell]++;
+        }
+
+        int[] symbols = new int[DATA_SYMBOLS];
+        for (int i = 0; i < DATA_SYMBOLS; i++) {
+            int best = -1;
+            for (int s = 0; s < 16; s++) {
+                if (votes[i][s] > 0 && (best < 0 || votes[i][s] > votes[i][best])) best = s;
+            }
+            if (best < 0) return null;
+            symbols[i] = best ^ whitening[i];
+        }
+
+        long payload = 0;
+        for (int i = 0; i < 16; i++) payload = (payload << 4) | symbols[i];
+        int crc = 0;
+        for (int i = 16; i < DATA_SYMBOLS; i++) crc = (crc << 4) | symbols[i];
+        return crc == crc16(payload) ? payload : null;
+    }
+
+    /** Whether the capture decodes to the payload of this session and user. */
+    public boolean matches(int[] cells, String sessionId, String userId) {
+        Long payload = decode(cells);
+        return payload != null && payload == payloadFor(sessionId, userId);
+    }
+
+    /** Horizontal center of {@code cell}, as a fraction of the free width. */
+    public static float columnFraction(int cell) {
+        return (cell % COLUMNS + 0.5f) / COLUMNS;
+    }
+
+    /** Vertical center of {@code cell}, as a fraction of the free height. */
+    public static float rowFraction(int cell) {
+        return (cell / COLUMNS + 0.5f) / ROWS;
+    }
+
+    /** Cell for a label position given as fractions of the free width and height. */
+    public static int cellAt(float columnFraction, float rowFraction) {
+        int column = Math.min(COLUMNS - 1, Math.max(0, (int) (columnFraction * COLUMNS)));
+        int row = Math.min(ROWS - 1, Math.max(0, (int) (rowFraction * ROWS)));
+        return row * COLUMNS + column;
+    }
+
+    private static long fnv(long hash, byte[] bytes) {
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** CRC-16/CCITT-FALSE of the payload's big-endian bytes. */
+    private static int crc16(long payload) {
+        int crc = 0xFFFF;
+        for (int i = 7; i >= 0; i--) {
+            crc ^= (int) ((payload >>> (8 * i)) & 0xFF) << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+        }
+        return crc & 0xFFFF;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
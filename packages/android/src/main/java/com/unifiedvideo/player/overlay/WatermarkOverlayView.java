@@ -12,19 +12,46 @@ import java.util.Random;
 
 /**
  * Semi-random moving watermark overlay similar to web watermark.
+ * Drawing allocates nothing: the gradient is rebuilt only on size or color changes and the
+ * label is formatted into a reusable buffer when it moves, so onDraw only replays it.
+ *
+ * <p>In layer mode the view wraps just the label, is rendered once into a hardware layer and
+ * is moved with translationX/Y, so moves are handled by the compositor without onDraw.
+ * Movement started with {@link #startMoving(long)} pauses while the view is not shown.
+ *
+ * <p>With a {@link ForensicWatermark} cycle set, each move goes to the next cell of the cycle
+ * instead of a random position.
  */
 public class WatermarkOverlayView extends View {
+    private static final float MARGIN = 20f;
+
     private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetricsInt fontMetrics = new Paint.FontMetricsInt();
     private final Random random = new Random();
 
     private int colorStart = 0xFFFF0000; // #ff0000
     private int colorEnd = 0xFFFF4D4F;   // #ff4d4f
     private float alpha = 0.3f;
 
-    private String text = "PREMIUM";
+    private final WatermarkText label = new WatermarkText("PREMIUM");
     private float x = 50;
     private float y = 80;
 
+    private int[] forensicCycle;
+    private int forensicStep;
+
+    private boolean layerMode;
+    private long moveIntervalMs;
+    private boolean paused;
+    private boolean moving;
+    private final Runnable mover = new Runnable() {
+        @Override
+        public void run() {
+            randomize();
+            postDelayed(this, moveIntervalMs);
+        }
+    };
+
     public WatermarkOverlayView(Context context) {
         super(context);
         init();
@@ -43,46 +70,182 @@ public class WatermarkOverlayView extends View {
     private void init() {
         paint.setTextSize(42f);
         paint.setStyle(Paint.Style.FILL);
+        paint.setAlpha((int) (alpha * 255));
+        paint.getFontMetricsInt(fontMetrics);
+        label.setCounter(System.currentTimeMillis());
         setClickable(false);
         setFocusable(false);
     }
 
+    /**
+     * Switch between a full-size view redrawn on every move and a label-sized hardware layer
+     * moved by translation. Layer mode expects WRAP_CONTENT layout params anchored top-left.
+     */
+    public void setLayerMode(boolean enabled) {
+        if (enabled == layerMode) return;
+        layerMode = enabled;
+        setLayerType(enabled ? LAYER_TYPE_HARDWARE : LAYER_TYPE_NONE, null);
+        setTranslationX(0);
+        setTranslationY(0);
+        requestLayout();
+        invalidate();
+    }
+
+    public boolean isLayerMode() {
+        return layerMode;
+    }
+
     public void setAccentColors(int startColor, int endColor) {
+        if (startColor == colorStart && endColor == colorEnd) return;
         this.colorStart = startColor;
         this.colorEnd = endColor;
+        updateShader(getWidth());
         invalidate();
     }
 
     public void setAlphaFactor(float alphaFactor) {
-        this.alpha = Math.max(0f, Math.min(1f, alphaFactor));
+        float clamped = Math.max(0f, Math.min(1f, alphaFactor));
+        if (clamped == alpha) return;
+        this.alpha = clamped;
+        paint.setAlpha((int) (alpha * 255));
         invalidate();
     }
 
     public void setText(String text) {
-        this.text = text;
+        if (!label.setText(text)) return;
+        if (layerMode) requestLayout();
         invalidate();
     }
 
-    /** Move watermark to a random position and redraw. */
+    /**
+     * Drive positions from a forensic cycle from {@link ForensicWatermark#encode}, starting
+     * with its sync cell; null goes back to random positions.
+     */
+    public void setForensicCycle(int[] cycle) {
+        this.forensicCycle = cycle;
+        this.forensicStep = 0;
+    }
+
+    /**
+     * Move watermark to the next forensic cell, or a random position. In layer mode only the
+     * translation changes; otherwise the counter is refreshed and the view redrawn.
+     */
     public void randomize() {
+        float fx;
+        float fy;
+        if (forensicCycle != null) {
+            int cell = forensicCycle[forensicStep];
+            fx = ForensicWatermark.columnFraction(cell);
+            fy = ForensicWatermark.rowFraction(cell);
+        } else {
+            fx = random.nextFloat();
+            fy = random.nextFloat();
+        }
+        if (layerMode) {
+            View parent = getParent() instanceof View ? (View) getParent() : null;
+            if (parent == null || parent.getWidth() <= 0 || parent.getHeight() <= 0) return;
+            setTranslationX(MARGIN + fx * Math.max(1f, parent.getWidth() - MARGIN * 2 - getWidth()));
+            setTranslationY(MARGIN + fy * Math.max(1f, parent.getHeight() - MARGIN * 2 - getHeight()));
+            advanceForensicStep();
+            return;
+        }
         int w = getWidth();
         int h = getHeight();
         if (w <= 0 || h <= 0) return;
-        float margin = 20f;
-        x = margin + random.nextFloat() * Math.max(1f, (w - margin * 2 - 200));
-        y = margin + random.nextFloat() * Math.max(1f, (h - margin * 2 - 60));
+        x = MARGIN + fx * Math.max(1f, (w - MARGIN * 2 - 200));
+        y = MARGIN + fy * Math.max(1f, (h - MARGIN * 2 - 60));
+        label.setCounter(System.currentTimeMillis());
+        advanceForensicStep();
         invalidate();
     }
 
+    /** Only moves that were shown advance the cycle, so skipped moves keep the sequence in phase. */
+    private void advanceForensicStep() {
+        if (forensicCycle != null) forensicStep = (forensicStep + 1) % forensicCycle.length;
+    }
+
+    /** Call {@link #randomize()} every {@code intervalMs} while the view is shown and not paused. */
+    public void startMoving(long intervalMs) {
+        moveIntervalMs = Math.max(0, intervalMs);
+        moving = false;
+        updateMoving();
+    }
+
+    public void stopMoving() {
+        moveIntervalMs = 0;
+        updateMoving();
+    }
+
+    /** Pause movement regardless of visibility, e.g. while the host is in the background. */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        updateMoving();
+    }
+
+    private void updateMoving() {
+        boolean shouldMove = moveIntervalMs > 0 && !paused && isAttachedToWindow()
+                && getWindowVisibility() == VISIBLE && isShown();
+        if (shouldMove == moving) return;
+        moving = shouldMove;
+        removeCallbacks(mover);
+        if (shouldMove) postDelayed(mover, moveIntervalMs);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateMoving();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // isAttachedToWindow() is still true during this callback
+        removeCallbacks(mover);
+        moving = false;
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateMoving();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateMoving();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (!layerMode) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        int w = (int) Math.ceil(paint.measureText(label.chars(), 0, label.length()));
+        int h = fontMetrics.descent - fontMetrics.ascent;
+        setMeasuredDimension(resolveSize(w, widthMeasureSpec), resolveSize(h, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (w != oldw) updateShader(w);
+    }
+
+    private void updateShader(int width) {
+        if (width <= 0) return;
+        paint.setShader(new LinearGradient(0, 0, width, 0, colorStart, colorEnd, Shader.TileMode.CLAMP));
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        int w = getWidth();
-        Shader shader = new LinearGradient(0, 0, w, 0, colorStart, colorEnd, Shader.TileMode.CLAMP);
-        paint.setShader(shader);
-        paint.setAlpha((int) (alpha * 255));
-        String content = text + " • " + System.currentTimeMillis() % 100000;
-        canvas.drawText(content, x, y, paint);
+        if (layerMode) {
+            canvas.drawText(label.chars(), 0, label.length(), 0, -fontMetrics.ascent, paint);
+        } else {
+            canvas.drawText(label.chars(), 0, label.length(), x, y, paint);
+        }
     }
 }
-
@@ -0,0 +1,69 @@
+package com.unifiedvideo.player.overlay;
+
+import java.util.Objects;
+
+/**
+ * Watermark label "TEXT • 12345" kept in a reusable char buffer, so refreshing the counter
+ * allocates nothing. Plain Java; the buffer is only reallocated when the text changes.
+ */
+public final class WatermarkText {
+    private static final String SEPARATOR = " \u2022 ";
+    private static final int COUNTER_MODULO = 100000;
+    private static final int MAX_COUNTER_DIGITS = 5;
+
+    private String text;
+    private char[] chars = new char[0];
+    private int prefixLength;
+    private int length;
+    private long counter = -1;
+
+    public WatermarkText(String text) {
+        setText(text);
+    }
+
+    /** Returns false if the text is unchanged. Null is treated as empty text. */
+    public boolean setText(String text) {
+        if (text == null) text = "";
+        if (Objects.equals(text, this.text)) return false;
+        this.text = text;
+        int textLength = text.length();
+        chars = new char[textLength + SEPARATOR.length() + MAX_COUNTER_DIGITS];
+        text.getChars(0, textLength, chars, 0);
+        SEPARATOR.getChars(0, SEPARATOR.length(), chars, textLength);
+        prefixLength = textLength + SEPARATOR.length();
+        long previous = counter;
+        counter = -1;
+        setCounter(previous < 0 ? 0 : previous);
+        return true;
+    }
+
+    /** Set the counter to {@code value} modulo 100000. Returns false if it is unchanged. */
+    public boolean setCounter(long value) {
+        long next = ((value % COUNTER_MODULO) + COUNTER_MODULO) % COUNTER_MODULO;
+        if (next == counter) return false;
+        counter = next;
+        int digits = 1;
+        for (long v = next / 10; v > 0; v /= 10) digits++;
+        long v = next;
+        for (int i = prefixLength + digits - 1; i >= prefixLength; i--) {
+            chars[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        length = prefixLength + digits;
+        return true;
+    }
+
+    /** Backing buffer; only the first {@link #length()} chars are valid. */
+    public char[] chars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,166 @@
+package com.unifiedvideo.player.pool;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.PlaybackParameters;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.unifiedvideo.player.drm.DrmSessionCache;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Process-wide pool of pre-built ExoPlayer instances, so screens that create and drop
+ * players quickly (feeds, carousels) reuse warm players instead of building new ones.
+ * Players are only handed out for the same build key they were created with.
+ * Must be used from the main thread, which is the application looper of pooled players.
+ */
+public final class PlayerPool {
+    public static final int DEFAULT_MAX_SIZE = 2;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 30_000;
+
+    /** Builds a new player when the pool has none for the requested key. */
+    public interface Factory {
+        PooledPlayer create();
+    }
+
+    /** A player together with the track selector it was built with. */
+    public static final class PooledPlayer {
+        public final ExoPlayer player;
+        public final DefaultTrackSelector trackSelector;
+        Object key;
+        long idleSinceMs;
+
+        public PooledPlayer(ExoPlayer player, DefaultTrackSelector trackSelector) {
+            this.player = player;
+            this.trackSelector = trackSelector;
+        }
+    }
+
+    private static PlayerPool instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ArrayDeque<PooledPlayer> idle = new ArrayDeque<>();
+    private final Runnable evictRunnable = this::evictIdle;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+
+    private PlayerPool(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized PlayerPool getInstance(Context context) {
+        if (instance == null) instance = new PlayerPool(context);
+        return instance;
+    }
+
+    /** Maximum number of idle players kept; extra players are released on recycle. */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        while (idle.size() > this.maxSize) {
+            release(idle.pollFirst());
+        }
+    }
+
+    /** Idle players older than this are released. */
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+        scheduleEviction();
+    }
+
+    /** Take an idle player built for {@code key}, or build one with {@code factory}. */
+    public PooledPlayer acquire(Object key, Factory factory) {
+        Iterator<PooledPlayer> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledPlayer pooled = it.next();
+            if (pooled.key.equals(key)) {
+                it.remove();
+                return pooled;
+            }
+        }
+        PooledPlayer created = factory.create();
+        created.key = key;
+        return created;
+    }
+
+    /** Build players ahead of time so the next {@code count} acquires are warm. */
+    public void prewarm(Object key, Factory factory, int count) {
+        int existing = 0;
+        for (PooledPlayer pooled : idle) {
+            if (pooled.key.equals(key)) existing++;
+        }
+        for (int i = existing; i < count && idle.size() < maxSize; i++) {
+            PooledPlayer created = factory.create();
+            created.key = key;
+            created.idleSinceMs = SystemClock.elapsedRealtime();
+            idle.addLast(created);
+        }
+        scheduleEviction();
+    }
+
+    /**
+     * Return a player to the pool. The caller must have removed its own listeners and
+     * detached any view or surface; playback state is reset here.
+     */
+    public void recycle(PooledPlayer pooled) {
+        if (maxSize == 0) {
+            release(pooled);
+            return;
+        }
+        ExoPlayer player = pooled.player;
+        player.stop();
+        player.clearMediaItems();
+        player.clearVideoSurface();
+        player.setPlayWhenReady(false);
+        player.setRepeatMode(Player.REPEAT_MODE_OFF);
+        player.setShuffleModeEnabled(false);
+        player.setVolume(1f);
+        player.setPlaybackParameters(PlaybackParameters.DEFAULT);
+        pooled.trackSelector.setParameters(DefaultTrackSelector.Parameters.getDefaults(context));
+
+        while (idle.size() >= maxSize) {
+            release(idle.pollFirst());
+        }
+        pooled.idleSinceMs = SystemClock.elapsedRealtime();
+        idle.addLast(pooled);
+        scheduleEviction();
+    }
+
+    /** Release every idle player. */
+    public void clear() {
+        handler.removeCallbacks(evictRunnable);
+        for (PooledPlayer pooled : idle) release(pooled);
+        idle.clear();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    private static void release(PooledPlayer pooled) {
+        DrmSessionCache.getInstance().evict(pooled.player.getPlaybackLooper());
+        pooled.player.release();
+    }
+
+    private void scheduleEviction() {
+        handler.removeCallbacks(evictRunnable);
+        PooledPlayer oldest = idle.peekFirst();
+        if (oldest == null) return;
+        long delay = oldest.idleSinceMs + idleTimeoutMs - SystemClock.elapsedRealtime();
+        handler.postDelayed(evictRunnable, Math.max(0, delay));
+    }
+
+    private void evictIdle() {
+        long now = SystemClock.elapsedRealtime();
+        while (!idle.isEmpty() && now - idle.peekFirst().idleSinceMs >= idleTimeoutMs) {
+            release(idle.pollFirst());
+        }
+        scheduleEviction();
+    }
+}
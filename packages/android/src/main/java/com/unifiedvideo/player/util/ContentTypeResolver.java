@@ -0,0 +1,152 @@
+package com.unifiedvideo.player.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves a URL to a source type and MIME type from the extension of its path.
+ * The query string and fragment are never looked at, so a signed URL carrying
+ * ".mp4" in a parameter still resolves by its real path. Pure Java, no Android types.
+ */
+public final class ContentTypeResolver {
+    public static final String TYPE_HLS = "hls";
+    public static final String TYPE_DASH = "dash";
+    public static final String TYPE_SMOOTH_STREAMING = "smoothstreaming";
+    public static final String TYPE_PROGRESSIVE = "progressive";
+
+    /** Result of a resolution. {@code sourceType} is null for subtitle formats. */
+    public static final class ContentType {
+        public final String sourceType;
+        public final String mimeType;
+        public final boolean subtitle;
+
+        ContentType(String sourceType, String mimeType, boolean subtitle) {
+            this.sourceType = sourceType;
+            this.mimeType = mimeType;
+            this.subtitle = subtitle;
+        }
+
+        public boolean isKnown() {
+            return this != UNKNOWN;
+        }
+
+        @Override
+        public String toString() {
+            return "ContentType{" + sourceType + ", " + mimeType + "}";
+        }
+    }
+
+    public static final ContentType UNKNOWN = new ContentType(null, null, false);
+
+    private static final ContentType HLS = new ContentType(TYPE_HLS, "application/x-mpegURL", false);
+    private static final ContentType DASH = new ContentType(TYPE_DASH, "application/dash+xml", false);
+    private static final ContentType SMOOTH_STREAMING = new ContentType(TYPE_SMOOTH_STREAMING, "application/vnd.ms-sstr+xml", false);
+    private static final ContentType VTT = new ContentType(null, "text/vtt", true);
+    private static final ContentType TTML = new ContentType(null, "application/ttml+xml", true);
+
+    private static final Map<String, ContentType> BY_EXTENSION = new HashMap<>();
+    private static final Map<String, ContentType> BY_MIME_TYPE = new HashMap<>();
+
+    static {
+        BY_EXTENSION.put("m3u8", HLS);
+        BY_EXTENSION.put("mpd", DASH);
+        BY_EXTENSION.put("ism", SMOOTH_STREAMING);
+        BY_EXTENSION.put("isml", SMOOTH_STREAMING);
+        progressive("mp4", "video/mp4");
+        progressive("m4v", "video/mp4");
+        progressive("mov", "video/quicktime");
+        progressive("webm", "video/webm");
+        progressive("mkv", "video/x-matroska");
+        progressive("ts", "video/mp2t");
+        progressive("m4a", "audio/mp4");
+        progressive("mp3", "audio/mpeg");
+        progressive("aac", "audio/aac");
+        progressive("ogg", "audio/ogg");
+        progressive("flac", "audio/flac");
+        progressive("wav", "audio/wav");
+        BY_EXTENSION.put("vtt", VTT);
+        BY_EXTENSION.put("webvtt", VTT);
+        BY_EXTENSION.put("srt", new ContentType(null, "application/x-subrip", true));
+        BY_EXTENSION.put("ttml", TTML);
+        BY_EXTENSION.put("dfxp", TTML);
+        BY_EXTENSION.put("xml", TTML);
+        BY_EXTENSION.put("ssa", new ContentType(null, "text/x-ssa", true));
+        BY_EXTENSION.put("ass", new ContentType(null, "text/x-ssa", true));
+
+        BY_MIME_TYPE.put("application/x-mpegurl", HLS);
+        BY_MIME_TYPE.put("application/vnd.apple.mpegurl", HLS);
+        BY_MIME_TYPE.put("audio/mpegurl", HLS);
+        BY_MIME_TYPE.put("audio/x-mpegurl", HLS);
+        BY_MIME_TYPE.put("application/dash+xml", DASH);
+        BY_MIME_TYPE.put("application/vnd.ms-sstr+xml", SMOOTH_STREAMING);
+    }
+
+    private ContentTypeResolver() {}
+
+    private static void progressive(String extension, String mimeType) {
+        ContentType type = new ContentType(TYPE_PROGRESSIVE, mimeType, false);
+        BY_EXTENSION.put(extension, type);
+        if (!BY_MIME_TYPE.containsKey(mimeType)) BY_MIME_TYPE.put(mimeType, type);
+    }
+
+    /** Resolve from the URL path, or {@link #UNKNOWN} when the extension is missing or not recognised. */
+    public static ContentType resolve(String url) {
+        if (url == null) return UNKNOWN;
+        int schemeEnd = url.indexOf("://");
+        int pathStart = schemeEnd < 0 ? 0 : url.indexOf('/', schemeEnd + 3);
+        if (pathStart < 0) return UNKNOWN;
+        int pathEnd = url.length();
+        for (int i = pathStart; i < pathEnd; i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                pathEnd = i;
+                break;
+            }
+        }
+        int segmentStart = url.lastIndexOf('/', pathEnd - 1) + 1;
+        if (segmentStart < pathStart) segmentStart = pathStart;
+        int dot = url.lastIndexOf('.', pathEnd - 1);
+        if (dot >= segmentStart) {
+            return byExtension(url.substring(dot + 1, pathEnd));
+        }
+        // SmoothStreaming: .../name.ism/Manifest, or Manifest(format=m3u8-aapl) / (format=mpd-time-csf)
+        if (url.regionMatches(true, segmentStart, "manifest", 0, 8) && segmentStart - 1 > pathStart) {
+            int previousDot = url.lastIndexOf('.', segmentStart - 2);
+            if (previousDot > pathStart && byExtension(url.substring(previousDot + 1, segmentStart - 1)) == SMOOTH_STREAMING) {
+                if (url.regionMatches(true, segmentStart + 8, "(format=m3u8", 0, 12)) return HLS;
+                if (url.regionMatches(true, segmentStart + 8, "(format=mpd", 0, 11)) return DASH;
+                return SMOOTH_STREAMING;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /** Resolve a Content-Type header value, ignoring parameters such as charset. */
+    public static ContentType resolveMimeType(String contentType) {
+        if (contentType == null) return UNKNOWN;
+        int semicolon = contentType.indexOf(';');
+        String mimeType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+        ContentType type = BY_MIME_TYPE.get(mimeType);
+        if (type != null) return type;
+        if (mimeType.startsWith("video/") || mimeType.startsWith("audio/")) {
+            return new ContentType(TYPE_PROGRESSIVE, mimeType, false);
+        }
+        return UNKNOWN;
+    }
+
+    /** MIME type for a source type name, e.g. one set explicitly on a media source. */
+    public static String mimeTypeForSourceType(String sourceType, String fallback) {
+        if (TYPE_HLS.equals(sourceType)) return HLS.mimeType;
+        if (TYPE_DASH.equals(sourceType)) return DASH.mimeType;
+        if (TYPE_SMOOTH_STREAMING.equals(sourceType)) return SMOOTH_STREAMING.mimeType;
+        ContentType type = sourceType != null ? BY_EXTENSION.get(sourceType) : null;
+        return type != null && !type.subtitle ? type.mimeType : fallback;
+    }
+
+    private static ContentType byExtension(String extension) {
+        ContentType type = BY_EXTENSION.get(extension);
+        if (type == null) type = BY_EXTENSION.get(extension.toLowerCase(Locale.ROOT));
+        return type != null ? type : UNKNOWN;
+    }
+}
@@ -0,0 +1,101 @@
+package com.unifiedvideo.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BufferProfileTest {
+
+    @Test
+    public void forNameResolvesNamedProfilesCaseInsensitively() {
+        assertSame(BufferProfile.FAST_START, BufferProfile.forName("fast-start"));
+        assertSame(BufferProfile.LOW_MEMORY, BufferProfile.forName("Low-Memory"));
+        assertSame(BufferProfile.LIVE_EDGE, BufferProfile.forName("LIVE-EDGE"));
+        assertSame(BufferProfile.LONG_BUFFER, BufferProfile.forName("long-buffer"));
+    }
+
+    @Test
+    public void forNameFallsBackToDefault() {
+        assertSame(BufferProfile.DEFAULT, BufferProfile.forName(null));
+        assertSame(BufferProfile.DEFAULT, BufferProfile.forName("unknown"));
+        assertSame(BufferProfile.DEFAULT, BufferProfile.forName("default"));
+    }
+
+    @Test
+    public void builderKeepsAllFields() {
+        BufferProfile profile = new BufferProfile.Builder("tv")
+                .setBufferDurationsMs(20_000, 40_000, 1_500, 3_000)
+                .setBackBufferMs(10_000)
+                .setTargetBufferBytes(32 * 1024 * 1024)
+                .setPrioritizeTimeOverSizeThresholds(true)
+                .build();
+
+        assertEquals("tv", profile.name);
+        assertEquals(20_000, profile.minBufferMs);
+        assertEquals(40_000, profile.maxBufferMs);
+        assertEquals(1_500, profile.bufferForPlaybackMs);
+        assertEquals(3_000, profile.bufferForPlaybackAfterRebufferMs);
+        assertEquals(10_000, profile.backBufferMs);
+        assertEquals(32 * 1024 * 1024, profile.targetBufferBytes);
+        assertTrue(profile.prioritizeTimeOverSizeThresholds);
+    }
+
+    @Test
+    public void builderDefaultsMatchDefaultProfile() {
+        BufferProfile custom = new BufferProfile.Builder().build();
+
+        assertEquals("custom", custom.name);
+        assertEquals(BufferProfile.DEFAULT, custom);
+        assertEquals(BufferProfile.UNSET_BYTES, custom.targetBufferBytes);
+        assertFalse(custom.prioritizeTimeOverSizeThresholds);
+    }
+
+    @Test
+    public void onlyShallowProfilesPrioritizeTime() {
+        assertFalse(BufferProfile.DEFAULT.prioritizeTimeOverSizeThresholds);
+        assertFalse(BufferProfile.LOW_MEMORY.prioritizeTimeOverSizeThresholds);
+        assertFalse(BufferProfile.LONG_BUFFER.prioritizeTimeOverSizeThresholds);
+        assertTrue(BufferProfile.FAST_START.prioritizeTimeOverSizeThresholds);
+        assertTrue(BufferProfile.LIVE_EDGE.prioritizeTimeOverSizeThresholds);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMinAboveMax() {
+        new BufferProfile.Builder().setBufferDurationsMs(30_000, 20_000, 2_500, 5_000).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPlaybackThresholdAboveMin() {
+        new BufferProfile.Builder().setBufferDurationsMs(2_000, 20_000, 2_500, 1_000).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRebufferThresholdAboveMin() {
+        new BufferProfile.Builder().setBufferDurationsMs(2_000, 20_000, 1_000, 2_500).build();
+    }
+
+    @Test
+    public void thresholdsEqualToMinAreAccepted() {
+        BufferProfile profile = new BufferProfile.Builder()
+                .setBufferDurationsMs(2_500, 2_500, 2_500, 2_500)
+                .build();
+
+        assertEquals(2_500, profile.maxBufferMs);
+    }
+
+    @Test
+    public void equalityIgnoresName() {
+        BufferProfile a = new BufferProfile.Builder("a").setBufferDurationsMs(10_000, 20_000, 1_000, 2_000).build();
+        BufferProfile b = new BufferProfile.Builder("b").setBufferDurationsMs(10_000, 20_000, 1_000, 2_000).build();
+        BufferProfile c = new BufferProfile.Builder("a").setBufferDurationsMs(10_000, 20_000, 1_000, 2_000)
+                .setBackBufferMs(5_000).build();
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, c);
+    }
+}
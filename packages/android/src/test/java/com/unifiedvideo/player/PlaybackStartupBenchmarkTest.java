@@ -0,0 +1,267 @@
+package com.unifiedvideo.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import android.os.Looper;
+import android.widget.FrameLayout;
+
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.ExoPlayerLibraryInfo;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.robolectric.ShadowMediaCodecConfig;
+import com.unifiedvideo.player.services.PlayerHolder;
+import com.unifiedvideo.player.util.ContentTypeResolver;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Startup benchmark: initialize(), load() to READY, seek to READY and a playlist item switch,
+ * for HLS, DASH and progressive fixtures served by a local HTTP server. Times are wall-clock
+ * on the JVM and are written as JSON to {@code uvf.benchmark.output}
+ * (build/reports/playback-startup.json under Gradle).
+ *
+ * <p>Skipped unless the {@code uvf.benchmark} system property is true
+ * ({@code gradle test -Puvf.benchmark}), so unit test runs don't pay for it.
+ *
+ * <p>Fixtures are generated by scripts/generate-android-test-media.py. Robolectric's clock is
+ * paused, so it is advanced in small steps while waiting; media loading runs in real time.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class PlaybackStartupBenchmarkTest {
+    private static final int ITERATIONS = Integer.getInteger("uvf.benchmark.iterations", 3);
+    private static final long TIMEOUT_MS = 20_000;
+    private static final long CLOCK_STEP_MS = 10;
+    private static final long SEEK_POSITION_MS = 4_000;
+
+    private static final String[][] FORMATS = {
+            {"hls", "/media/hls/audio.m3u8"},
+            {"dash", "/media/dash/audio.mpd"},
+            {"progressive", "/media/progressive/audio.mp4"},
+    };
+
+    @Rule
+    public final ShadowMediaCodecConfig mediaCodecConfig = ShadowMediaCodecConfig.forAllSupportedMimeTypes();
+
+    private Application application;
+    private MockWebServer server;
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("uvf.benchmark"));
+        application = RuntimeEnvironment.getApplication();
+        // The cast button and overlay controls expect an app theme, as in a real app
+        application.setTheme(androidx.appcompat.R.style.Theme_AppCompat_Light);
+        server = new MockWebServer();
+        server.setDispatcher(new FixtureDispatcher());
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) server.shutdown();
+    }
+
+    @Test
+    public void measureStartup() throws Exception {
+        Map<String, Map<String, List<Double>>> results = new LinkedHashMap<>();
+        for (String[] format : FORMATS) {
+            String url = server.url(format[1]).toString();
+            Map<String, List<Double>> timings = new LinkedHashMap<>();
+            for (int i = 0; i < ITERATIONS; i++) {
+                run(url, timings);
+            }
+            results.put(format[0], timings);
+        }
+
+        String json = toJson(results);
+        File output = new File(System.getProperty("uvf.benchmark.output", "build/reports/playback-startup.json"));
+        File directory = output.getAbsoluteFile().getParentFile();
+        assertTrue(directory.isDirectory() || directory.mkdirs());
+        try (OutputStream out = new FileOutputStream(output)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void run(String url, Map<String, List<Double>> timings) throws TimeoutException {
+        UnifiedVideoPlayer player = new UnifiedVideoPlayer(application);
+        FrameLayout container = new FrameLayout(application);
+        PlayerConfiguration configuration = new PlayerConfiguration.Builder().setAutoPlay(false).build();
+        try {
+            long startNs = System.nanoTime();
+            player.initialize(container, configuration);
+            record(timings, "initializeMs", startNs);
+            ExoPlayer exoPlayer = PlayerHolder.getPlayer();
+
+            startNs = System.nanoTime();
+            player.load(url);
+            runUntilReady(exoPlayer);
+            record(timings, "loadToReadyMs", startNs);
+
+            startNs = System.nanoTime();
+            player.seekTo(SEEK_POSITION_MS);
+            runUntilReady(exoPlayer);
+            record(timings, "seekToReadyMs", startNs);
+
+            player.setPlaylist(Arrays.asList(new MediaSourceInfo(url), new MediaSourceInfo(url)));
+            runUntilReady(exoPlayer);
+            startNs = System.nanoTime();
+            assertTrue(player.next());
+            runUntilReady(exoPlayer);
+            record(timings, "itemSwitchMs", startNs);
+            assertEquals(1, player.getCurrentItemIndex());
+        } finally {
+            player.release();
+        }
+    }
+
+    /**
+     * Wait until the player has handled every command issued so far and is READY. The state
+     * seen on the main thread is masked right after a command, so READY alone is not enough.
+     */
+    private static void runUntilReady(ExoPlayer player) throws TimeoutException {
+        AtomicBoolean handled = new AtomicBoolean();
+        // Commands are handled in order on the playback thread, so this arrives after them
+        player.createMessage((messageType, payload) -> handled.set(true))
+                .setLooper(Looper.getMainLooper())
+                .send();
+        runMainLooperUntil(() -> handled.get() && player.getPlaybackState() == Player.STATE_READY);
+    }
+
+    private static void runMainLooperUntil(Condition condition) throws TimeoutException {
+        long deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (!condition.isMet()) {
+            if (System.nanoTime() > deadlineNs) throw new TimeoutException();
+            // Let scheduled work on the main and playback loopers run
+            ShadowLooper.idleMainLooper(CLOCK_STEP_MS, TimeUnit.MILLISECONDS);
+            Thread.yield();
+        }
+    }
+
+    private static void record(Map<String, List<Double>> timings, String name, long startNs) {
+        List<Double> values = timings.get(name);
+        if (values == null) {
+            values = new ArrayList<>();
+            timings.put(name, values);
+        }
+        values.add((System.nanoTime() - startNs) / 1e6);
+    }
+
+    private static String toJson(Map<String, Map<String, List<Double>>> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"exoPlayerVersion\":\"").append(ExoPlayerLibraryInfo.VERSION)
+                .append("\",\"iterations\":").append(ITERATIONS)
+                .append(",\"formats\":{");
+        boolean firstFormat = true;
+        for (Map.Entry<String, Map<String, List<Double>>> format : results.entrySet()) {
+            if (!firstFormat) sb.append(',');
+            firstFormat = false;
+            sb.append('"').append(format.getKey()).append("\":{");
+            boolean firstTiming = true;
+            for (Map.Entry<String, List<Double>> timing : format.getValue().entrySet()) {
+                if (!firstTiming) sb.append(',');
+                firstTiming = false;
+                List<Double> sorted = new ArrayList<>(timing.getValue());
+                Collections.sort(sorted);
+                sb.append('"').append(timing.getKey()).append("\":{")
+                        .append("\"median\":").append(format(sorted.get(sorted.size() / 2)))
+                        .append(",\"min\":").append(format(sorted.get(0)))
+                        .append(",\"max\":").append(format(sorted.get(sorted.size() - 1)))
+                        .append(",\"runs\":[");
+                for (int i = 0; i < timing.getValue().size(); i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append(format(timing.getValue().get(i)));
+                }
+                sb.append("]}");
+            }
+            sb.append('}');
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static String format(double ms) {
+        return String.format(Locale.ROOT, "%.2f", ms);
+    }
+
+    /** Serves the fixtures under src/test/resources, with byte ranges like a CDN origin. */
+    private static final class FixtureDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getRequestUrl().encodedPath();
+            byte[] body = readResource(path);
+            if (body == null) return new MockResponse().setResponseCode(404);
+
+            ContentTypeResolver.ContentType type = ContentTypeResolver.resolve(path);
+            MockResponse response = new MockResponse()
+                    .setHeader("Content-Type", type.mimeType != null ? type.mimeType : "application/octet-stream")
+                    .setHeader("Accept-Ranges", "bytes");
+            String range = request.getHeader("Range");
+            if (range == null || !range.startsWith("bytes=")) {
+                return response.setBody(new Buffer().write(body));
+            }
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            int start = Integer.parseInt(bounds[0]);
+            if (start >= body.length) {
+                return response.setResponseCode(416).setHeader("Content-Range", "bytes */" + body.length);
+            }
+            int end = bounds[1].isEmpty() ? body.length - 1 : Math.min(Integer.parseInt(bounds[1]), body.length - 1);
+            return response.setResponseCode(206)
+                    .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + body.length)
+                    .setBody(new Buffer().write(body, start, end - start + 1));
+        }
+
+        private static byte[] readResource(String path) {
+            try (InputStream in = PlaybackStartupBenchmarkTest.class.getResourceAsStream(path)) {
+                if (in == null) return null;
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
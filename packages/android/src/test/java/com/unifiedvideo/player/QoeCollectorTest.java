@@ -0,0 +1,182 @@
+package com.unifiedvideo.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.Timeline;
+import com.google.android.exoplayer2.Tracks;
+import com.google.android.exoplayer2.analytics.AnalyticsListener.EventTime;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.util.MimeTypes;
+import com.google.common.collect.ImmutableList;
+import com.unifiedvideo.player.analytics.QoeSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Robolectric's clock stands still, so the session starts at {@link #startMs} and every
+ * interval is closed by a callback before the snapshot is taken.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class QoeCollectorTest {
+    private final QoeCollector collector = new QoeCollector();
+    private long startMs;
+
+    @Before
+    public void setUp() {
+        collector.startSession();
+        startMs = SystemClock.elapsedRealtime();
+    }
+
+    private EventTime at(long offsetMs) {
+        return new EventTime(startMs + offsetMs, Timeline.EMPTY, 0, null, 0, Timeline.EMPTY, 0, null, 0, 0);
+    }
+
+    private static Tracks tracksOf(String sampleMimeType) {
+        TrackGroup group = new TrackGroup(new Format.Builder().setSampleMimeType(sampleMimeType).build());
+        return new Tracks(ImmutableList.of(
+                new Tracks.Group(group, false, new int[] {C.FORMAT_HANDLED}, new boolean[] {true})));
+    }
+
+    private static Format videoFormat(int bitrate) {
+        return new Format.Builder().setSampleMimeType(MimeTypes.VIDEO_H264).setAverageBitrate(bitrate).build();
+    }
+
+    /** Startup buffering, then the first frame and playing at {@code startedMs}. */
+    private void startVideo(long startedMs) {
+        collector.onTracksChanged(at(0), tracksOf(MimeTypes.VIDEO_H264));
+        collector.onPlaybackStateChanged(at(0), Player.STATE_BUFFERING);
+        collector.onRenderedFirstFrame(at(startedMs), new Object(), startMs + startedMs);
+        collector.onPlaybackStateChanged(at(startedMs), Player.STATE_READY);
+        collector.onIsPlayingChanged(at(startedMs), true);
+    }
+
+    @Test
+    public void videoStartsAtFirstRenderedFrame() {
+        startVideo(800);
+        collector.onIsPlayingChanged(at(1_800), false);
+
+        QoeSnapshot snapshot = collector.endSession();
+
+        assertEquals(800, snapshot.videoStartTimeMs);
+        assertEquals(0, snapshot.rebufferCount);
+        assertEquals(1_000, snapshot.playTimeMs);
+        assertFalse(snapshot.exitedBeforeStart);
+        assertTrue(snapshot.ended);
+    }
+
+    @Test
+    public void videoDoesNotStartWhenPlayingBeforeFirstFrame() {
+        collector.onTracksChanged(at(0), tracksOf(MimeTypes.VIDEO_H264));
+        collector.onIsPlayingChanged(at(300), true);
+        collector.onIsPlayingChanged(at(400), false);
+
+        assertEquals(QoeSnapshot.UNSET, collector.snapshot().videoStartTimeMs);
+    }
+
+    @Test
+    public void audioOnlyStartsWhenItFirstPlays() {
+        collector.onTracksChanged(at(0), tracksOf(MimeTypes.AUDIO_AAC));
+        collector.onPlaybackStateChanged(at(0), Player.STATE_BUFFERING);
+        collector.onPlaybackStateChanged(at(500), Player.STATE_READY);
+        collector.onIsPlayingChanged(at(500), true);
+        collector.onIsPlayingChanged(at(1_500), false);
+        collector.onPlaybackStateChanged(at(1_500), Player.STATE_BUFFERING);
+        collector.onPlaybackStateChanged(at(1_900), Player.STATE_READY);
+
+        QoeSnapshot snapshot = collector.endSession();
+
+        assertEquals(500, snapshot.videoStartTimeMs);
+        assertEquals(1, snapshot.rebufferCount);
+        assertEquals(400, snapshot.rebufferDurationMs);
+        assertFalse(snapshot.exitedBeforeStart);
+    }
+
+    @Test
+    public void endingBeforeStartIsAnExitBeforeStart() {
+        collector.onTracksChanged(at(0), tracksOf(MimeTypes.VIDEO_H264));
+        collector.onPlaybackStateChanged(at(0), Player.STATE_BUFFERING);
+
+        QoeSnapshot snapshot = collector.endSession();
+
+        assertEquals(QoeSnapshot.UNSET, snapshot.videoStartTimeMs);
+        assertEquals(0, snapshot.rebufferCount);
+        assertTrue(snapshot.exitedBeforeStart);
+    }
+
+    @Test
+    public void stallsAfterStartAreRebuffers() {
+        startVideo(300);
+        collector.onIsPlayingChanged(at(1_300), false);
+        collector.onPlaybackStateChanged(at(1_300), Player.STATE_BUFFERING);
+        collector.onPlaybackStateChanged(at(1_800), Player.STATE_READY);
+        collector.onIsPlayingChanged(at(1_800), true);
+        collector.onIsPlayingChanged(at(2_300), false);
+
+        QoeSnapshot snapshot = collector.endSession();
+
+        assertEquals(1, snapshot.rebufferCount);
+        assertEquals(500, snapshot.rebufferDurationMs);
+        assertEquals(1_500, snapshot.playTimeMs);
+        assertEquals(0.25, snapshot.rebufferRatio, 1e-9);
+    }
+
+    @Test
+    public void seekBufferingIsNotARebuffer() {
+        startVideo(300);
+        collector.onPositionDiscontinuity(at(1_000), null, null, Player.DISCONTINUITY_REASON_SEEK);
+        collector.onPlaybackStateChanged(at(1_000), Player.STATE_BUFFERING);
+        collector.onPlaybackStateChanged(at(1_600), Player.STATE_READY);
+
+        assertEquals(0, collector.snapshot().rebufferCount);
+        assertEquals(0, collector.snapshot().rebufferDurationMs);
+
+        // Only the buffering that completes the seek is excused
+        collector.onPlaybackStateChanged(at(2_000), Player.STATE_BUFFERING);
+        collector.onPlaybackStateChanged(at(2_200), Player.STATE_READY);
+
+        assertEquals(1, collector.snapshot().rebufferCount);
+        assertEquals(200, collector.snapshot().rebufferDurationMs);
+    }
+
+    @Test
+    public void bitrateIsWeightedByPlayingTime() {
+        collector.onVideoInputFormatChanged(at(0), videoFormat(1_000_000), null);
+        startVideo(1_000);
+        collector.onVideoInputFormatChanged(at(2_000), videoFormat(3_000_000), null);
+        collector.onVideoInputFormatChanged(at(2_500), videoFormat(3_000_000), null);
+        collector.onIsPlayingChanged(at(3_000), false);
+
+        QoeSnapshot snapshot = collector.endSession();
+
+        assertEquals(2_000_000, snapshot.averageBitrate);
+        assertEquals(3_000_000, snapshot.peakBitrate);
+        assertEquals(1, snapshot.bitrateSwitchCount);
+    }
+
+    @Test
+    public void callbacksOutsideASessionAreIgnored() {
+        startVideo(300);
+        collector.onIsPlayingChanged(at(1_300), false);
+        collector.endSession();
+
+        collector.onPlaybackStateChanged(at(2_000), Player.STATE_BUFFERING);
+        collector.onVideoInputFormatChanged(at(2_000), videoFormat(1_000_000), null);
+
+        assertNull(collector.endSession());
+        assertEquals(0, collector.snapshot().rebufferCount);
+        assertEquals(0, collector.snapshot().bitrateSwitchCount);
+    }
+}
@@ -0,0 +1,180 @@
+package com.unifiedvideo.player.analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AnalyticsDispatcherTest {
+    private final BlockingProvider provider = new BlockingProvider();
+    private AnalyticsDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        provider.release.countDown();
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    @Test
+    public void deliversInOrderWhenNotFull() throws Exception {
+        provider.release.countDown();
+        dispatcher = newDispatcher(8, AnalyticsDispatcher.OverflowPolicy.DROP_OLDEST);
+        dispatch("play", 1);
+        dispatch("pause", 2);
+        dispatch("play", 3);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), provider.awaitTimestamps(3));
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void dropNewestDiscardsIncomingEvent() throws Exception {
+        dispatcher = fillBlocked(AnalyticsDispatcher.OverflowPolicy.DROP_NEWEST);
+        dispatch("seek", 4);
+
+        assertEquals(1, dispatcher.getDroppedCount());
+        provider.release.countDown();
+        assertEquals(Arrays.asList(1L, 2L, 3L), provider.awaitTimestamps(3));
+    }
+
+    @Test
+    public void dropOldestDiscardsHeadOfQueue() throws Exception {
+        dispatcher = fillBlocked(AnalyticsDispatcher.OverflowPolicy.DROP_OLDEST);
+        dispatch("seek", 4);
+
+        assertEquals(1, dispatcher.getDroppedCount());
+        provider.release.countDown();
+        assertEquals(Arrays.asList(1L, 3L, 4L), provider.awaitTimestamps(3));
+    }
+
+    @Test
+    public void coalesceReplacesNewestEventWithSameName() throws Exception {
+        dispatcher = fillBlocked(AnalyticsDispatcher.OverflowPolicy.COALESCE);
+        // Queue holds play@2, pause@3; a new play replaces play@2 in place
+        dispatch("play", 4);
+
+        assertEquals(1, dispatcher.getDroppedCount());
+        provider.release.countDown();
+        assertEquals(Arrays.asList(1L, 4L, 3L), provider.awaitTimestamps(3));
+    }
+
+    @Test
+    public void coalesceFallsBackToDropOldest() throws Exception {
+        dispatcher = fillBlocked(AnalyticsDispatcher.OverflowPolicy.COALESCE);
+        dispatch("seek", 4);
+
+        provider.release.countDown();
+        assertEquals(Arrays.asList(1L, 3L, 4L), provider.awaitTimestamps(3));
+    }
+
+    @Test
+    public void shutdownDeliversQueuedEventsAndDropsLaterOnes() throws Exception {
+        dispatcher = fillBlocked(AnalyticsDispatcher.OverflowPolicy.DROP_OLDEST);
+        dispatcher.shutdown();
+        dispatch("seek", 4);
+
+        assertEquals(1, dispatcher.getDroppedCount());
+        provider.release.countDown();
+        assertEquals(Arrays.asList(1L, 2L, 3L), provider.awaitTimestamps(3));
+    }
+
+    @Test
+    public void qoeSnapshotsGoToOnQoeSnapshotOnTheDispatcherThread() throws Exception {
+        provider.release.countDown();
+        dispatcher = newDispatcher(8, AnalyticsDispatcher.OverflowPolicy.DROP_OLDEST);
+        QoeSnapshot snapshot = new QoeSnapshot(250, 0, 0, 5_000, QoeSnapshot.UNSET, QoeSnapshot.UNSET,
+                0, 0, QoeSnapshot.UNSET, false, true);
+        AnalyticsEvent event = AnalyticsEvent.obtain(QoeSnapshot.EVENT_NAME, 1, 0, 0);
+        event.qoe = snapshot;
+        dispatcher.dispatch(event);
+        dispatch("play", 2);
+
+        assertSame(snapshot, provider.awaitSnapshot());
+        assertEquals("UVF-Analytics", provider.snapshotThread);
+        assertEquals(Arrays.asList(2L), provider.awaitTimestamps(1));
+    }
+
+    /** Capacity 2: event 1 is held by the blocked provider, events 2 and 3 fill the queue. */
+    private AnalyticsDispatcher fillBlocked(AnalyticsDispatcher.OverflowPolicy policy) throws Exception {
+        AnalyticsDispatcher d = newDispatcher(2, policy);
+        dispatcher = d;
+        dispatch("play", 1);
+        assertTrue("consumer did not start", provider.entered.await(5, TimeUnit.SECONDS));
+        dispatch("play", 2);
+        dispatch("pause", 3);
+        return d;
+    }
+
+    private AnalyticsDispatcher newDispatcher(int capacity, AnalyticsDispatcher.OverflowPolicy policy) {
+        List<AnalyticsProvider> providers = new CopyOnWriteArrayList<>();
+        providers.add(provider);
+        return new AnalyticsDispatcher(providers, capacity, policy);
+    }
+
+    private void dispatch(String name, long timestamp) {
+        dispatcher.dispatch(AnalyticsEvent.obtain(name, timestamp, 0, 0));
+    }
+
+    /** Records timestamps; blocks inside the first batch until released. */
+    private static final class BlockingProvider implements AnalyticsProvider {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private final List<Long> timestamps = Collections.synchronizedList(new ArrayList<>());
+        private volatile QoeSnapshot snapshot;
+        volatile String snapshotThread;
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public void track(String event, Map<String, Object> data) {}
+
+        @Override
+        public void onEvent(AnalyticsEvent event) {
+            timestamps.add(event.timestamp);
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void onQoeSnapshot(QoeSnapshot snapshot) {
+            snapshotThread = Thread.currentThread().getName();
+            this.snapshot = snapshot;
+        }
+
+        QoeSnapshot awaitSnapshot() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (snapshot == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            return snapshot;
+        }
+
+        List<Long> awaitTimestamps(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (timestamps.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            synchronized (timestamps) {
+                return new ArrayList<>(timestamps);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.unifiedvideo.player.drm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.exoplayer2.C;
+
+import org.junit.Test;
+
+public class OfflineLicenseStoreTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void unsetDurationMeansNoExpiry() {
+        assertEquals(Long.MAX_VALUE, OfflineLicenseStore.expiresAtMs(NOW, C.TIME_UNSET));
+    }
+
+    @Test
+    public void negativeDurationMeansNoExpiry() {
+        assertEquals(Long.MAX_VALUE, OfflineLicenseStore.expiresAtMs(NOW, -1));
+    }
+
+    @Test
+    public void zeroDurationExpiresNow() {
+        assertEquals(NOW, OfflineLicenseStore.expiresAtMs(NOW, 0));
+    }
+
+    @Test
+    public void finiteDurationIsAddedInMilliseconds() {
+        assertEquals(NOW + 48 * 3600 * 1000L, OfflineLicenseStore.expiresAtMs(NOW, 48 * 3600));
+    }
+
+    @Test
+    public void largeDurationSaturatesInsteadOfOverflowing() {
+        assertEquals(Long.MAX_VALUE, OfflineLicenseStore.expiresAtMs(NOW, Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, OfflineLicenseStore.expiresAtMs(NOW, Long.MAX_VALUE / 1000));
+        assertEquals(Long.MAX_VALUE, OfflineLicenseStore.expiresAtMs(NOW, (Long.MAX_VALUE - NOW) / 1000));
+    }
+
+    @Test
+    public void largestRepresentableDurationDoesNotOverflow() {
+        long remainingSec = (Long.MAX_VALUE - NOW) / 1000 - 1;
+        long expiresAt = OfflineLicenseStore.expiresAtMs(NOW, remainingSec);
+        assertEquals(NOW + remainingSec * 1000, expiresAt);
+        assertTrue(expiresAt > NOW);
+    }
+}
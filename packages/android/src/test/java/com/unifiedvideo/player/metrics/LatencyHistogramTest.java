@@ -0,0 +1,121 @@
+package com.unifiedvideo.player.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    private static final long MAX_TRACKABLE = (1L << 40) - 1;
+
+    private final LatencyHistogram histogram = new LatencyHistogram("test");
+
+    @Test
+    public void valuesBelow32AreExact() {
+        for (long v = 0; v < 32; v++) {
+            assertEquals(v, LatencyHistogram.indexOf(v));
+            assertEquals(v, LatencyHistogram.upperBoundOf((int) v));
+        }
+    }
+
+    @Test
+    public void everyValueFallsInsideItsBucket() {
+        int previousIndex = -1;
+        for (long v = 0; v < 200_000; v++) {
+            int index = LatencyHistogram.indexOf(v);
+            assertTrue("index must not decrease at " + v, index >= previousIndex);
+            assertTrue("upper bound below " + v, LatencyHistogram.upperBoundOf(index) >= v);
+            if (index > 0) {
+                assertTrue("previous bucket covers " + v, LatencyHistogram.upperBoundOf(index - 1) < v);
+            }
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void bucketWidthIsWithinOneSixteenth() {
+        for (long v = 32; v < MAX_TRACKABLE; v = v * 3 / 2 + 1) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(v));
+            assertTrue("bucket too wide at " + v, upper - v <= v / 16);
+        }
+        assertEquals(MAX_TRACKABLE, LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(MAX_TRACKABLE)));
+    }
+
+    @Test
+    public void percentilesOfUniformValues() {
+        for (long v = 1; v <= 1000; v++) histogram.record(v);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count);
+        assertEquals(511, snapshot.p50);
+        assertEquals(927, snapshot.p90);
+        assertEquals(991, snapshot.p99);
+        assertEquals(1000, snapshot.max);
+    }
+
+    @Test
+    public void percentilesNeverExceedMax() {
+        histogram.record(33);
+        histogram.record(33);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(33, snapshot.p50);
+        assertEquals(33, snapshot.p99);
+        assertEquals(33, snapshot.max);
+    }
+
+    @Test
+    public void singleOutlierOnlyMovesTopPercentile() {
+        for (int i = 0; i < 99; i++) histogram.record(10);
+        histogram.record(5_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.p50);
+        assertEquals(10, snapshot.p90);
+        assertEquals(10, snapshot.p99);
+        assertEquals(5_000, snapshot.max);
+    }
+
+    @Test
+    public void negativeAndHugeValuesAreClamped() {
+        histogram.record(-5);
+        assertEquals(0, histogram.snapshot().max);
+
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.count);
+        assertEquals(MAX_TRACKABLE, snapshot.max);
+        assertEquals(MAX_TRACKABLE, snapshot.p99);
+    }
+
+    @Test
+    public void emptyAndResetSnapshotsAreZero() {
+        assertEquals("{\"count\":0,\"p50\":0,\"p90\":0,\"p99\":0,\"max\":0}", histogram.snapshot().toJson());
+
+        histogram.record(120);
+        histogram.reset();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.count);
+        assertEquals(0, snapshot.max);
+        assertEquals("test", snapshot.name);
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws Exception {
+        int threads = 4;
+        final int perThread = 10_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) histogram.record(offset * 100 + i % 100);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(threads * perThread, snapshot.count);
+        assertEquals(399, snapshot.max);
+    }
+}
@@ -0,0 +1,86 @@
+package com.unifiedvideo.player.net;
+
+import static org.junit.Assert.assertEquals;
+
+import com.unifiedvideo.player.PlayerConfiguration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+/** Segment-like requests over TLS: one shared client against one client per request. */
+public class HttpStackTest {
+    private static final int REQUESTS = 5;
+
+    private final PlayerConfiguration configuration = new PlayerConfiguration.Builder().build();
+    private MockWebServer server;
+    private HandshakeCertificates clientCertificates;
+
+    @Before
+    public void setUp() throws IOException {
+        HeldCertificate localhost = new HeldCertificate.Builder()
+                .addSubjectAlternativeName("localhost")
+                .build();
+        HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder()
+                .heldCertificate(localhost)
+                .build();
+        clientCertificates = new HandshakeCertificates.Builder()
+                .addTrustedCertificate(localhost.certificate())
+                .build();
+        server = new MockWebServer();
+        server.useHttps(serverCertificates.sslSocketFactory(), false);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void sharedClientHandshakesOnce() throws IOException {
+        OkHttpClient client = newClient();
+        long handshakes = HttpStack.getTlsHandshakeCount();
+        long connects = HttpStack.getConnectCount();
+
+        for (int i = 0; i < REQUESTS; i++) fetchSegment(client, i);
+
+        assertEquals(1, HttpStack.getTlsHandshakeCount() - handshakes);
+        assertEquals(1, HttpStack.getConnectCount() - connects);
+    }
+
+    @Test
+    public void unsharedClientsHandshakeEveryRequest() throws IOException {
+        long handshakes = HttpStack.getTlsHandshakeCount();
+
+        for (int i = 0; i < REQUESTS; i++) fetchSegment(newClient(), i);
+
+        assertEquals(REQUESTS, HttpStack.getTlsHandshakeCount() - handshakes);
+    }
+
+    private OkHttpClient newClient() {
+        return HttpStack.clientBuilder(configuration)
+                .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+                .build();
+    }
+
+    private void fetchSegment(OkHttpClient client, int index) throws IOException {
+        server.enqueue(new MockResponse().setBody("segment-" + index));
+        Request request = new Request.Builder()
+                .url(server.url("/video/segment" + index + ".ts"))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals("segment-" + index, response.body().string());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.unifiedvideo.player.overlay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ForensicWatermarkTest {
+    private static final long PAYLOAD = 0x0123456789ABCDEFL;
+
+    private final ForensicWatermark watermark = new ForensicWatermark(0x5EEDL);
+
+    /** {@code cycles} repetitions of {@code cycle}, starting {@code offset} moves into it. */
+    private static int[] capture(int[] cycle, int offset, int cycles) {
+        int[] observed = new int[cycle.length * cycles];
+        for (int i = 0; i < observed.length; i++) {
+            observed[i] = cycle[(i + offset) % cycle.length];
+        }
+        return observed;
+    }
+
+    @Test
+    public void cycleStartsWithSyncCellFollowedByDataCells() {
+        int[] cycle = watermark.encode(PAYLOAD);
+
+        assertEquals(ForensicWatermark.CYCLE_LENGTH, cycle.length);
+        assertEquals(ForensicWatermark.SYNC_CELL, cycle[0]);
+        for (int i = 1; i < cycle.length; i++) {
+            assertTrue(cycle[i] >= 0 && cycle[i] < 16);
+        }
+    }
+
+    @Test
+    public void singleCycleRoundTrips() {
+        assertEquals(Long.valueOf(PAYLOAD), watermark.decode(watermark.encode(PAYLOAD)));
+    }
+
+    @Test
+    public void captureMayStartAtAnyOffset() {
+        int[] cycle = watermark.encode(PAYLOAD);
+        for (int offset = 0; offset < cycle.length; offset++) {
+            assertEquals("offset " + offset, Long.valueOf(PAYLOAD), watermark.decode(capture(cycle, offset, 2)));
+        }
+    }
+
+    @Test
+    public void gapsAreFilledFromOtherCycles() {
+        int[] cycle = watermark.encode(PAYLOAD);
+        int[] observed = capture(cycle, 7, 2);
+        // The cycle length is odd, so every other cell drops each position from one cycle only
+        for (int i = 0; i < observed.length; i += 2) {
+            if (observed[i] != ForensicWatermark.SYNC_CELL) observed[i] = ForensicWatermark.UNKNOWN_CELL;
+        }
+
+        assertEquals(Long.valueOf(PAYLOAD), watermark.decode(observed));
+    }
+
+    @Test
+    public void positionNeverObservedFails() {
+        int[] observed = capture(watermark.encode(PAYLOAD), 0, 3);
+        for (int i = 5; i < observed.length; i += ForensicWatermark.CYCLE_LENGTH) {
+            observed[i] = ForensicWatermark.UNKNOWN_CELL;
+        }
+
+        assertNull(watermark.decode(observed));
+    }
+
+    @Test
+    public void captureWithoutSyncCellFails() {
+        int[] observed = watermark.encode(PAYLOAD);
+        observed[0] = ForensicWatermark.UNKNOWN_CELL;
+
+        assertNull(watermark.decode(observed));
+        assertNull(watermark.decode(new int[0]));
+    }
+
+    @Test
+    public void corruptedSymbolIsRejectedByCrc() {
+        int[] cycle = watermark.encode(PAYLOAD);
+        for (int position = 1; position < cycle.length; position++) {
+            int[] corrupted = cycle.clone();
+            corrupted[position] ^= 0x5;
+
+            assertNull("position " + position, watermark.decode(corrupted));
+        }
+    }
+
+    @Test
+    public void majorityVoteOutweighsOneBadCycle() {
+        int[] observed = capture(watermark.encode(PAYLOAD), 0, 3);
+        observed[4] ^= 0x3;
+        observed[ForensicWatermark.CYCLE_LENGTH + 10] ^= 0x9;
+
+        assertEquals(Long.valueOf(PAYLOAD), watermark.decode(observed));
+    }
+
+    @Test
+    public void randomPayloadsRoundTripThroughLossyCaptures() {
+        Random random = new Random(1);
+        for (int n = 0; n < 10_000; n++) {
+            long payload = random.nextLong();
+            int[] observed = capture(watermark.encode(payload), random.nextInt(ForensicWatermark.CYCLE_LENGTH), 4);
+            for (int i = 0; i < observed.length; i++) {
+                if (random.nextInt(20) == 0) observed[i] = ForensicWatermark.UNKNOWN_CELL;
+            }
+
+            assertEquals(Long.valueOf(payload), watermark.decode(observed));
+        }
+    }
+
+    @Test
+    public void matchesOnlyTheEncodedSessionAndUser() {
+        int[] observed = capture(watermark.encode("session-1", "user-1"), 11, 2);
+
+        assertTrue(watermark.matches(observed, "session-1", "user-1"));
+        assertFalse(watermark.matches(observed, "session-1", "user-2"));
+        assertFalse(watermark.matches(observed, "session-2", "user-1"));
+        assertFalse(watermark.matches(observed, "user-1", "session-1"));
+    }
+
+    @Test
+    public void idBoundaryIsPartOfThePayload() {
+        assertNotEquals(ForensicWatermark.payloadFor("ab", "c"), ForensicWatermark.payloadFor("a", "bc"));
+        assertEquals(ForensicWatermark.payloadFor("s", "u"), ForensicWatermark.payloadFor("s", "u"));
+    }
+
+    @Test
+    public void whiteningDependsOnKey() {
+        int[] cycle = watermark.encode(PAYLOAD);
+        ForensicWatermark other = new ForensicWatermark(0xBADL);
+
+        assertFalse(Arrays.equals(cycle, other.encode(PAYLOAD)));
+        assertNotEquals(Long.valueOf(PAYLOAD), other.decode(cycle));
+    }
+
+    @Test
+    public void cellCentersMapBackToTheirCell() {
+        for (int cell = 0; cell < ForensicWatermark.COLUMNS * ForensicWatermark.ROWS; cell++) {
+            assertEquals(cell, ForensicWatermark.cellAt(
+                    ForensicWatermark.columnFraction(cell), ForensicWatermark.rowFraction(cell)));
+        }
+        assertEquals(0, ForensicWatermark.cellAt(-0.5f, -0.5f));
+        assertEquals(ForensicWatermark.SYNC_CELL, ForensicWatermark.cellAt(1f, 1f));
+    }
+}
@@ -0,0 +1,51 @@
+package com.unifiedvideo.player.overlay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class WatermarkTextTest {
+
+    @Test
+    public void formatsTextAndCounter() {
+        WatermarkText label = new WatermarkText("user@example.com");
+        assertEquals("user@example.com \u2022 0", label.toString());
+
+        assertTrue(label.setCounter(12345));
+        assertEquals("user@example.com \u2022 12345", label.toString());
+        assertFalse(label.setCounter(12345));
+    }
+
+    @Test
+    public void counterWrapsModulo100000() {
+        WatermarkText label = new WatermarkText("a");
+        label.setCounter(100_007);
+        assertEquals("a \u2022 7", label.toString());
+        label.setCounter(-1);
+        assertEquals("a \u2022 99999", label.toString());
+    }
+
+    @Test
+    public void changingTextKeepsCounter() {
+        WatermarkText label = new WatermarkText("a");
+        label.setCounter(42);
+
+        assertTrue(label.setText("longer text"));
+        assertEquals("longer text \u2022 42", label.toString());
+        assertFalse(label.setText("longer text"));
+    }
+
+    @Test
+    public void nullTextIsEmpty() {
+        WatermarkText label = new WatermarkText(null);
+        assertEquals(" \u2022 0", label.toString());
+
+        assertFalse(label.setText(null));
+        assertFalse(label.setText(""));
+        assertTrue(label.setText("x"));
+        assertTrue(label.setText(null));
+        assertEquals(" \u2022 0", label.toString());
+    }
+}
@@ -0,0 +1,94 @@
+package com.unifiedvideo.player.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.unifiedvideo.player.util.ContentTypeResolver.ContentType;
+
+import org.junit.Test;
+
+public class ContentTypeResolverTest {
+
+    private static String sourceType(String url) {
+        return ContentTypeResolver.resolve(url).sourceType;
+    }
+
+    @Test
+    public void resolvesByPathExtension() {
+        assertEquals(ContentTypeResolver.TYPE_HLS, sourceType("https://cdn.example.com/live/master.m3u8"));
+        assertEquals(ContentTypeResolver.TYPE_DASH, sourceType("https://cdn.example.com/vod/manifest.mpd"));
+        assertEquals(ContentTypeResolver.TYPE_PROGRESSIVE, sourceType("https://cdn.example.com/clip.mp4"));
+        assertEquals("video/webm", ContentTypeResolver.resolve("https://cdn.example.com/clip.webm").mimeType);
+    }
+
+    @Test
+    public void extensionIsCaseInsensitive() {
+        assertEquals(ContentTypeResolver.TYPE_HLS, sourceType("https://cdn.example.com/MASTER.M3U8"));
+    }
+
+    @Test
+    public void mp4InQueryDoesNotOverridePath() {
+        assertEquals(ContentTypeResolver.TYPE_HLS, sourceType("https://cdn.example.com/x/master.m3u8?file=a.mp4"));
+        assertEquals(ContentTypeResolver.TYPE_DASH, sourceType("https://cdn.example.com/x/stream.mpd?redirect=/b/c.mp4&sig=1"));
+        assertEquals(ContentTypeResolver.TYPE_HLS, sourceType("https://cdn.example.com/x/master.m3u8#t=clip.mp4"));
+    }
+
+    @Test
+    public void mp4OnlyInQueryIsUnknown() {
+        assertSame(ContentTypeResolver.UNKNOWN, ContentTypeResolver.resolve("https://cdn.example.com/play?f=.mp4"));
+        assertSame(ContentTypeResolver.UNKNOWN, ContentTypeResolver.resolve("https://cdn.example.com/stream?format=a.mp4"));
+    }
+
+    @Test
+    public void dotInDirectoryIsNotAnExtension() {
+        assertSame(ContentTypeResolver.UNKNOWN, ContentTypeResolver.resolve("https://cdn.example.com/v1.2/stream"));
+        assertSame(ContentTypeResolver.UNKNOWN, ContentTypeResolver.resolve("https://cdn.example.mp4"));
+    }
+
+    @Test
+    public void smoothStreamingManifestFormats() {
+        assertEquals(ContentTypeResolver.TYPE_SMOOTH_STREAMING, sourceType("https://cdn.example.com/a/video.ism/Manifest"));
+        assertEquals(ContentTypeResolver.TYPE_HLS, sourceType("https://cdn.example.com/a/video.ism/Manifest(format=m3u8-aapl)"));
+        assertEquals(ContentTypeResolver.TYPE_DASH, sourceType("https://cdn.example.com/a/video.isml/manifest(format=mpd-time-csf)"));
+    }
+
+    @Test
+    public void subtitlesHaveNoSourceType() {
+        ContentType vtt = ContentTypeResolver.resolve("https://cdn.example.com/subs/en.vtt?token=abc");
+        assertTrue(vtt.subtitle);
+        assertNull(vtt.sourceType);
+        assertEquals("text/vtt", vtt.mimeType);
+    }
+
+    @Test
+    public void nullAndUnrecognisedAreUnknown() {
+        assertFalse(ContentTypeResolver.resolve(null).isKnown());
+        assertFalse(ContentTypeResolver.resolve("https://cdn.example.com/file.bin").isKnown());
+    }
+
+    @Test
+    public void mimeTypeIgnoresParametersAndCase() {
+        assertEquals(ContentTypeResolver.TYPE_HLS,
+                ContentTypeResolver.resolveMimeType("Application/vnd.apple.mpegurl; charset=UTF-8").sourceType);
+        assertEquals(ContentTypeResolver.TYPE_DASH, ContentTypeResolver.resolveMimeType("application/dash+xml").sourceType);
+    }
+
+    @Test
+    public void unknownVideoMimeTypeIsProgressive() {
+        ContentType type = ContentTypeResolver.resolveMimeType("video/x-flv");
+        assertEquals(ContentTypeResolver.TYPE_PROGRESSIVE, type.sourceType);
+        assertEquals("video/x-flv", type.mimeType);
+        assertSame(ContentTypeResolver.UNKNOWN, ContentTypeResolver.resolveMimeType("text/html"));
+    }
+
+    @Test
+    public void mimeTypeForSourceType() {
+        assertEquals("application/dash+xml", ContentTypeResolver.mimeTypeForSourceType("dash", null));
+        assertEquals("video/mp4", ContentTypeResolver.mimeTypeForSourceType("mp4", null));
+        assertEquals("fallback", ContentTypeResolver.mimeTypeForSourceType("vtt", "fallback"));
+        assertEquals("fallback", ContentTypeResolver.mimeTypeForSourceType(null, "fallback"));
+    }
+}
@@ -0,0 +1,201 @@
+#!/usr/bin/env python3
+"""
+Writes the small audio-only media fixtures used by the Android SDK's Robolectric
+playback benchmark (packages/android/src/test/resources/media):
+
+  progressive/audio.mp4           AAC-LC in a plain MP4, moov before mdat
+  hls/audio.m3u8, hls/segN.aac    VOD media playlist with packed-audio segments
+  dash/audio.mpd, dash/init.mp4,  static MPD with fragmented MP4 segments
+  dash/segN.m4s
+
+The AAC payloads are silence-sized placeholders: Robolectric's shadow codecs pass
+samples through without decoding, so only the containers have to be valid.
+
+Usage: python3 scripts/generate-android-test-media.py
+"""
+
+import os
+import struct
+
+SAMPLE_RATE = 44100
+SAMPLES_PER_FRAME = 1024
+FRAMES_PER_SEGMENT = 86  # ~2 s
+SEGMENTS = 3
+FRAME_PAYLOAD = bytes([0x21, 0x10, 0x04, 0x60, 0x8C, 0x1C])
+# AudioSpecificConfig: AAC-LC, 44.1 kHz, mono
+AUDIO_SPECIFIC_CONFIG = bytes([0x12, 0x08])
+
+OUT = os.path.join(os.path.dirname(os.path.abspath(__file__)),
+                   '..', 'packages', 'android', 'src', 'test', 'resources', 'media')
+
+
+def box(kind, *payload):
+    body = b''.join(payload)
+    return struct.pack('>I', 8 + len(body)) + kind + body
+
+
+def full_box(kind, version, flags, *payload):
+    return box(kind, struct.pack('>I', (version << 24) | flags), *payload)
+
+
+def descriptor(tag, payload):
+    return bytes([tag, len(payload)]) + payload
+
+
+MATRIX = struct.pack('>9I', 0x00010000, 0, 0, 0, 0x00010000, 0, 0, 0, 0x40000000)
+
+
+def ftyp():
+    return box(b'ftyp', b'isom', struct.pack('>I', 0x200), b'isom', b'iso2', b'mp41')
+
+
+def mvhd(duration_ms):
+    return full_box(b'mvhd', 0, 0,
+                    struct.pack('>IIII', 0, 0, 1000, duration_ms),
+                    struct.pack('>IH', 0x00010000, 0x0100), bytes(10), MATRIX, bytes(24),
+                    struct.pack('>I', 2))
+
+
+def tkhd(duration_ms):
+    return full_box(b'tkhd', 0, 3,
+                    struct.pack('>IIII', 0, 0, 1, 0), struct.pack('>I', duration_ms), bytes(8),
+                    struct.pack('>hhhH', 0, 0, 0x0100, 0), MATRIX, struct.pack('>II', 0, 0))
+
+
+def esds():
+    decoder_specific_info = descriptor(0x05, AUDIO_SPECIFIC_CONFIG)
+    decoder_config = descriptor(0x04, bytes([0x40, 0x15]) + bytes(3)
+                                + struct.pack('>II', 64000, 64000) + decoder_specific_info)
+    sl_config = descriptor(0x06, bytes([0x02]))
+    return full_box(b'esds', 0, 0, descriptor(0x03, struct.pack('>HB', 1, 0) + decoder_config + sl_config))
+
+
+def stsd():
+    mp4a = box(b'mp4a', bytes(6), struct.pack('>H', 1), bytes(8),
+               struct.pack('>HHHHI', 1, 16, 0, 0, SAMPLE_RATE << 16), esds())
+    return full_box(b'stsd', 0, 0, struct.pack('>I', 1), mp4a)
+
+
+def trak(duration_samples, stbl_tables):
+    duration_ms = duration_samples * 1000 // SAMPLE_RATE
+    mdhd = full_box(b'mdhd', 0, 0, struct.pack('>IIII', 0, 0, SAMPLE_RATE, duration_samples),
+                    struct.pack('>HH', 0x55C4, 0))
+    hdlr = full_box(b'hdlr', 0, 0, struct.pack('>I', 0), b'soun', bytes(12), b'SoundHandler\0')
+    smhd = full_box(b'smhd', 0, 0, struct.pack('>HH', 0, 0))
+    dinf = box(b'dinf', full_box(b'dref', 0, 0, struct.pack('>I', 1), full_box(b'url ', 0, 1)))
+    stbl = box(b'stbl', stsd(), *stbl_tables)
+    minf = box(b'minf', smhd, dinf, stbl)
+    return box(b'trak', tkhd(duration_ms), box(b'mdia', mdhd, hdlr, minf))
+
+
+def progressive_mp4(frame_count):
+    def build(chunk_offset):
+        tables = [
+            full_box(b'stts', 0, 0, struct.pack('>III', 1, frame_count, SAMPLES_PER_FRAME)),
+            full_box(b'stsc', 0, 0, struct.pack('>IIII', 1, 1, frame_count, 1)),
+            full_box(b'stsz', 0, 0, struct.pack('>II', 0, frame_count),
+                     struct.pack('>I', len(FRAME_PAYLOAD)) * frame_count),
+            full_box(b'stco', 0, 0, struct.pack('>II', 1, chunk_offset)),
+        ]
+        duration_samples = frame_count * SAMPLES_PER_FRAME
+        return box(b'moov', mvhd(duration_samples * 1000 // SAMPLE_RATE), trak(duration_samples, tables))
+
+    head = ftyp()
+    moov = build(0)
+    moov = build(len(head) + len(moov) + 8)
+    return head + moov + box(b'mdat', FRAME_PAYLOAD * frame_count)
+
+
+def fragmented_init():
+    tables = [
+        full_box(b'stts', 0, 0, struct.pack('>I', 0)),
+        full_box(b'stsc', 0, 0, struct.pack('>I', 0)),
+        full_box(b'stsz', 0, 0, struct.pack('>II', 0, 0)),
+        full_box(b'stco', 0, 0, struct.pack('>I', 0)),
+    ]
+    trex = full_box(b'trex', 0, 0, struct.pack('>IIIII', 1, 1, SAMPLES_PER_FRAME, 0, 0))
+    return ftyp() + box(b'moov', mvhd(0), trak(0, tables), box(b'mvex', trex))
+
+
+def fragment(sequence, base_decode_time, frame_count):
+    def build(data_offset):
+        tfhd = full_box(b'tfhd', 0, 0x020000, struct.pack('>I', 1))
+        tfdt = full_box(b'tfdt', 1, 0, struct.pack('>Q', base_decode_time))
+        trun = full_box(b'trun', 0, 0x000201, struct.pack('>Ii', frame_count, data_offset),
+                        struct.pack('>I', len(FRAME_PAYLOAD)) * frame_count)
+        return box(b'moof', full_box(b'mfhd', 0, 0, struct.pack('>I', sequence)), box(b'traf', tfhd, tfdt, trun))
+
+    moof = build(0)
+    moof = build(len(moof) + 8)
+    return moof + box(b'mdat', FRAME_PAYLOAD * frame_count)
+
+
+def adts_frame():
+    length = 7 + len(FRAME_PAYLOAD)
+    header = bytes([
+        0xFF, 0xF1,
+        (1 << 6) | (4 << 2),  # AAC-LC, 44.1 kHz
+        (1 << 6) | ((length >> 11) & 0x03),  # mono
+        (length >> 3) & 0xFF,
+        ((length & 0x07) << 5) | 0x1F,
+        0xFC,
+    ])
+    return header + FRAME_PAYLOAD
+
+
+def id3_timestamp(pts_90khz):
+    owner = b'com.apple.streaming.transportStreamTimestamp\0'
+    frame_data = owner + struct.pack('>Q', pts_90khz)
+    frame = b'PRIV' + syncsafe(len(frame_data)) + bytes(2) + frame_data
+    return b'ID3' + bytes([4, 0, 0]) + syncsafe(len(frame)) + frame
+
+
+def syncsafe(value):
+    return bytes([(value >> 21) & 0x7F, (value >> 14) & 0x7F, (value >> 7) & 0x7F, value & 0x7F])
+
+
+def write(path, data):
+    full = os.path.join(OUT, path)
+    os.makedirs(os.path.dirname(full), exist_ok=True)
+    mode = 'w' if isinstance(data, str) else 'wb'
+    with open(full, mode) as f:
+        f.write(data)
+
+
+def main():
+    segment_samples = FRAMES_PER_SEGMENT * SAMPLES_PER_FRAME
+    segment_seconds = segment_samples / SAMPLE_RATE
+    total_seconds = segment_seconds * SEGMENTS
+
+    write('progressive/audio.mp4', progressive_mp4(FRAMES_PER_SEGMENT * SEGMENTS))
+
+    playlist = ['#EXTM3U', '#EXT-X-VERSION:3', '#EXT-X-TARGETDURATION:2',
+                '#EXT-X-MEDIA-SEQUENCE:0', '#EXT-X-PLAYLIST-TYPE:VOD']
+    for i in range(SEGMENTS):
+        pts = i * segment_samples * 90000 // SAMPLE_RATE
+        write('hls/seg%d.aac' % i, id3_timestamp(pts) + adts_frame() * FRAMES_PER_SEGMENT)
+        playlist += ['#EXTINF:%.3f,' % segment_seconds, 'seg%d.aac' % i]
+    playlist.append('#EXT-X-ENDLIST')
+    write('hls/audio.m3u8', '\n'.join(playlist) + '\n')
+
+    write('dash/init.mp4', fragmented_init())
+    for i in range(SEGMENTS):
+        write('dash/seg%d.m4s' % i, fragment(i + 1, i * segment_samples, FRAMES_PER_SEGMENT))
+    write('dash/audio.mpd', '''<?xml version="1.0" encoding="UTF-8"?>
+<MPD xmlns="urn:mpeg:dash:schema:mpd:2011" type="static" profiles="urn:mpeg:dash:profile:isoff-live:2011"
+     mediaPresentationDuration="PT%.3fS" minBufferTime="PT2S">
+  <Period id="0" start="PT0S">
+    <AdaptationSet id="0" contentType="audio" mimeType="audio/mp4" segmentAlignment="true">
+      <Representation id="audio" codecs="mp4a.40.2" bandwidth="64000" audioSamplingRate="%d">
+        <AudioChannelConfiguration schemeIdUri="urn:mpeg:dash:23003:3:audio_channel_configuration:2011" value="1"/>
+        <SegmentTemplate timescale="%d" initialization="init.mp4" media="seg$Number$.m4s"
+                         startNumber="0" duration="%d"/>
+      </Representation>
+    </AdaptationSet>
+  </Period>
+</MPD>
+''' % (total_seconds, SAMPLE_RATE, SAMPLE_RATE, segment_samples))
+
+
+if __name__ == '__main__':
+    main()